@@ -0,0 +1,51 @@
+package com.noe.apinoe2.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noe.apinoe2.dto.ApiResponse;
+import com.noe.apinoe2.dto.UsuarioDto;
+import com.noe.apinoe2.mapper.UsuarioMapper;
+
+/**
+ * Serialización con Jackson del sobre ApiResponse con listas de UsuarioDto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int tamano;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<UsuarioDto>> respuesta;
+
+    @Setup
+    public void setUp() {
+        objectMapper = UsuarioFixtures.objectMapper();
+        respuesta = ApiResponse.success(new UsuarioMapper().toDtoList(UsuarioFixtures.usuarios(tamano)));
+    }
+
+    @Benchmark
+    public byte[] serializar() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(respuesta);
+    }
+}
@@ -0,0 +1,99 @@
+package com.noe.apinoe2.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.noe.apinoe2.dto.ApiResponse;
+import com.noe.apinoe2.dto.UsuarioDto;
+import com.noe.apinoe2.mapper.UsuarioMapper;
+
+/**
+ * Codificación y decodificación del sobre ApiResponse con listas de UsuarioDto en JSON, CBOR y Smile
+ * El tamaño de cada carga sale en los resultados como contador auxiliar (":bytes")
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BinaryFormatsBenchmark {
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    public String formato;
+
+    @Param({"1000", "10000", "100000"})
+    public int tamano;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<UsuarioDto>> respuesta;
+    private byte[] codificada;
+
+    /**
+     * Lo que decodifica un cliente: ApiResponse no tiene constructor para Jackson
+     */
+    public static class Sobre {
+        public boolean success;
+        public String message;
+        public List<UsuarioDto> data;
+        public String timestamp;
+    }
+
+    /**
+     * Tamaño en bytes de la carga codificada, informado junto al tiempo de cada benchmark
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Carga {
+        private long bytes;
+
+        public long bytes() {
+            return bytes;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = UsuarioFixtures.objectMapper(factory(formato));
+        respuesta = ApiResponse.success(new UsuarioMapper().toDtoList(UsuarioFixtures.usuarios(tamano)));
+        codificada = objectMapper.writeValueAsBytes(respuesta);
+    }
+
+    @Benchmark
+    public byte[] codificar(Carga carga) throws IOException {
+        carga.bytes = codificada.length;
+        return objectMapper.writeValueAsBytes(respuesta);
+    }
+
+    @Benchmark
+    public Sobre decodificar(Carga carga) throws IOException {
+        carga.bytes = codificada.length;
+        return objectMapper.readValue(codificada, Sobre.class);
+    }
+
+    private static JsonFactory factory(String formato) {
+        return switch (formato) {
+            case "CBOR" -> new CBORFactory();
+            case "SMILE" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+    }
+}
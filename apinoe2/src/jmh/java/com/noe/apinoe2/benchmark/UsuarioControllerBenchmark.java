@@ -0,0 +1,137 @@
+package com.noe.apinoe2.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noe.apinoe2.controller.UsuarioController;
+import com.noe.apinoe2.controller.base.ResponseCache;
+import com.noe.apinoe2.mapper.UsuarioMapper;
+import com.noe.apinoe2.service.support.UsuarioEventos;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+/**
+ * Ruta completa de BaseController.getAll/getById (validación condicional, mapeo y serialización
+ * del cuerpo) sobre un UsuarioService en memoria, sin BD ni contenedor.
+ * Con cacheRespuestas=true getById se sirve desde la caché de bytes (sin escrituras, siempre acierta)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsuarioControllerBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int tamano;
+
+    @Param({"false", "true"})
+    public boolean cacheRespuestas;
+
+    private ObjectMapper objectMapper;
+    private UsuarioController controller;
+    private Integer id;
+
+    @Setup
+    public void setUp() {
+        objectMapper = UsuarioFixtures.objectMapper();
+        UsuarioMapper mapper = new UsuarioMapper();
+        controller = new UsuarioController(
+                UsuarioFixtures.servicioEnMemoria(UsuarioFixtures.usuarios(tamano)), mapper, objectMapper,
+                new UsuarioEventos(objectMapper, new SimpleMeterRegistry(), 1, 1));
+        ResponseCache responseCache = new ResponseCache(objectMapper, new SimpleMeterRegistry(),
+                DataSize.ofMegabytes(cacheRespuestas ? 64 : 0), Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(controller, "responseCache", responseCache);
+        // getAll entrega la colección completa del tamaño medido
+        ReflectionTestUtils.setField(controller, "maxListSize", tamano);
+        id = tamano / 2;
+    }
+
+    @Benchmark
+    public byte[] getAll() throws JsonProcessingException {
+        ServletWebRequest peticion = peticion("/api/usuarios");
+        return serializar(controller.getAll(null, peticion), peticion);
+    }
+
+    @Benchmark
+    public byte[] getById() throws JsonProcessingException {
+        ServletWebRequest peticion = peticion("/api/usuarios/" + id);
+        return serializar(controller.getById(id, peticion), peticion);
+    }
+
+    /**
+     * Sin cuerpo devuelto, la respuesta ya se escribió (bytes cacheados)
+     */
+    private byte[] serializar(ResponseEntity<?> respuesta, ServletWebRequest peticion) throws JsonProcessingException {
+        if (respuesta == null) {
+            return ((RespuestaEnMemoria) peticion.getResponse()).getBytes();
+        }
+        return objectMapper.writeValueAsBytes(respuesta.getBody());
+    }
+
+    private static ServletWebRequest peticion(String uri) {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", uri), new RespuestaEnMemoria());
+    }
+
+    /**
+     * El stream de MockHttpServletResponse escribe byte a byte; el de Tomcat copia bloques
+     */
+    private static class RespuestaEnMemoria extends MockHttpServletResponse {
+
+        private final ByteArrayOutputStream cuerpo = new ByteArrayOutputStream();
+
+        private final ServletOutputStream salida = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                cuerpo.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                cuerpo.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return salida;
+        }
+
+        byte[] getBytes() {
+            return cuerpo.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.noe.apinoe2.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noe.apinoe2.dto.UsuarioDto;
+import com.noe.apinoe2.mapper.UsuarioMapper;
+import com.noe.apinoe2.model.Usuario;
+import com.noe.apinoe2.service.UsuarioService;
+
+/**
+ * Datos y dobles compartidos por los benchmarks
+ */
+final class UsuarioFixtures {
+
+    private static final LocalDateTime FECHA_BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private UsuarioFixtures() {
+    }
+
+    static List<Usuario> usuarios(int cantidad) {
+        List<Usuario> usuarios = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setId(i);
+            usuario.setNombre("Usuario " + i);
+            usuario.setEmail("usuario" + i + "@example.com");
+            usuario.setGoogleId(i % 2 == 0 ? "google-" + i : null);
+            usuario.setImagenUrl("https://example.com/avatar/" + i + ".png");
+            usuario.setFechaCreacion(FECHA_BASE.plusMinutes(i));
+            usuario.setFechaActualizacion(FECHA_BASE.plusMinutes(i));
+            usuario.setActivo(true);
+            usuarios.add(usuario);
+        }
+        return usuarios;
+    }
+
+    /**
+     * ObjectMapper con la misma configuración por defecto que usa Spring MVC
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    /**
+     * ObjectMapper con la misma configuración sobre otra codificación (CBOR, Smile)
+     */
+    static ObjectMapper objectMapper(JsonFactory factory) {
+        return Jackson2ObjectMapperBuilder.json().factory(factory).build();
+    }
+
+    /**
+     * UsuarioService en memoria: solo las lecturas que usan getAll y getById
+     * (la proyección a UsuarioDto se precalcula, como la haría la consulta)
+     */
+    static UsuarioService servicioEnMemoria(List<Usuario> usuarios) {
+        Map<Integer, Usuario> porId = usuarios.stream()
+                .collect(Collectors.toMap(Usuario::getId, Function.identity()));
+        List<UsuarioDto> proyeccion = new UsuarioMapper().toDtoList(usuarios);
+        String version = usuarios.size() + "-0";
+        return (UsuarioService) Proxy.newProxyInstance(
+                UsuarioService.class.getClassLoader(),
+                new Class<?>[] {UsuarioService.class},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "findAll" -> args == null ? usuarios
+                            : proyeccion.subList(0, Math.min(proyeccion.size(), (Integer) args[1]));
+                    case "findById" -> Optional.ofNullable(porId.get((Integer) args[0]));
+                    case "getCollectionVersion" -> version;
+                    case "getCacheVersion" -> 0L;
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+}
@@ -0,0 +1,75 @@
+package com.noe.apinoe2.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.noe.apinoe2.dto.UsuarioDto;
+import com.noe.apinoe2.mapper.UsuarioMapper;
+import com.noe.apinoe2.model.Usuario;
+
+/**
+ * Conversiones de UsuarioMapper: una entidad, listas de distintos tamaños y actualización desde DTO
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsuarioMapperBenchmark {
+
+    private final UsuarioMapper mapper = new UsuarioMapper();
+    private Usuario usuario;
+    private UsuarioDto cambios;
+
+    /**
+     * Listas de entrada para toDtoList; el resto de operaciones no depende del tamaño
+     */
+    @State(Scope.Benchmark)
+    public static class Lista {
+
+        @Param({"10", "1000", "10000"})
+        public int tamano;
+
+        List<Usuario> usuarios;
+
+        @Setup
+        public void setUp() {
+            usuarios = UsuarioFixtures.usuarios(tamano);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        usuario = UsuarioFixtures.usuarios(1).get(0);
+        cambios = new UsuarioDto("Nombre Cambiado", "cambiado@example.com", "google-cambiado", null);
+    }
+
+    @Benchmark
+    public UsuarioDto toDto() {
+        return mapper.toDto(usuario);
+    }
+
+    @Benchmark
+    public List<UsuarioDto> toDtoList(Lista lista) {
+        return mapper.toDtoList(lista.usuarios);
+    }
+
+    @Benchmark
+    public Usuario updateEntityFromDto() {
+        mapper.updateEntityFromDto(usuario, cambios);
+        return usuario;
+    }
+}
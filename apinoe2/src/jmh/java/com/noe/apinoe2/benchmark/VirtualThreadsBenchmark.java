@@ -0,0 +1,108 @@
+package com.noe.apinoe2.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.noe.apinoe2.config.ConcurrencyLimitedDataSource;
+
+/**
+ * Compara hilos de plataforma (200, como Tomcat por defecto) con un hilo virtual por petición.
+ * Cada petición simula una espera de E/S ajena a la BD y una consulta corta que
+ * pasa por {@link ConcurrencyLimitedDataSource} con el tamaño del pool como límite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+
+    private static final int PETICIONES = 2000;
+    private static final int HILOS_PLATAFORMA = 200;
+
+    @Param({"PLATAFORMA", "VIRTUAL"})
+    public String modo;
+
+    @Param({"10"})
+    public int tamanoPool;
+
+    @Param({"20", "100"})
+    public int latenciaExternaMs;
+
+    @Param({"1"})
+    public int latenciaConsultaMs;
+
+    private ExecutorService executor;
+    private DataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = "VIRTUAL".equals(modo)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(HILOS_PLATAFORMA);
+        dataSource = new ConcurrencyLimitedDataSource(dataSourceSimulado(), tamanoPool, Duration.ofMinutes(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PETICIONES)
+    public int peticiones() throws Exception {
+        List<Future<Integer>> pendientes = new ArrayList<>(PETICIONES);
+        for (int i = 0; i < PETICIONES; i++) {
+            pendientes.add(executor.submit(this::atenderPeticion));
+        }
+        int total = 0;
+        for (Future<Integer> pendiente : pendientes) {
+            total += pendiente.get();
+        }
+        return total;
+    }
+
+    private Integer atenderPeticion() throws Exception {
+        Thread.sleep(latenciaExternaMs);
+        try (Connection conexion = dataSource.getConnection()) {
+            Thread.sleep(latenciaConsultaMs);
+            return conexion.isValid(0) ? 1 : 0;
+        }
+    }
+
+    private static DataSource dataSourceSimulado() {
+        Connection conexion = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, metodo, args) -> "isValid".equals(metodo.getName()) ? Boolean.TRUE : null);
+        return (DataSource) Proxy.newProxyInstance(
+                DataSource.class.getClassLoader(),
+                new Class<?>[] {DataSource.class},
+                (proxy, metodo, args) -> "getConnection".equals(metodo.getName()) ? conexion : null);
+    }
+}
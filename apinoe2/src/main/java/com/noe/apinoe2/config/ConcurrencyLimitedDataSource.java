@@ -0,0 +1,98 @@
+package com.noe.apinoe2.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource que limita cuántas conexiones pueden estar en uso a la vez
+ * Con hilos virtuales puede haber miles de peticiones concurrentes: en lugar de saturar
+ * el pool y SQL Server, esperan turno en un semáforo justo (FIFO) con tiempo máximo.
+ * El permiso se devuelve al cerrar la conexión.
+ */
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permisos;
+    private final int maxConcurrencia;
+    private final long esperaMaximaNanos;
+
+    public ConcurrencyLimitedDataSource(DataSource target, int maxConcurrencia, Duration esperaMaxima) {
+        super(target);
+        this.maxConcurrencia = maxConcurrencia;
+        this.permisos = new Semaphore(maxConcurrencia, true);
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        adquirir();
+        try {
+            return envolver(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        adquirir();
+        try {
+            return envolver(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    public int getEnUso() {
+        return maxConcurrencia - permisos.availablePermits();
+    }
+
+    public int getEsperando() {
+        return permisos.getQueueLength();
+    }
+
+    private void adquirir() throws SQLException {
+        try {
+            if (!permisos.tryAcquire(esperaMaximaNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "Tiempo de espera agotado para obtener conexión (" + maxConcurrencia + " en uso)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando conexión", e);
+        }
+    }
+
+    /**
+     * Devuelve un proxy que libera el permiso una sola vez al cerrar la conexión
+     */
+    private Connection envolver(Connection conexion) {
+        AtomicBoolean liberado = new AtomicBoolean(false);
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, metodo, args) -> {
+                    try {
+                        return metodo.invoke(conexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        if ("close".equals(metodo.getName()) && liberado.compareAndSet(false, true)) {
+                            permisos.release();
+                        }
+                    }
+                });
+    }
+}
@@ -1,25 +1,159 @@
 package com.noe.apinoe2.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.sql.DataSource;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Configuración de base de datos SQL Server
+ * Pools HikariCP de escritura (primario) y de lectura (transacciones readOnly, repartidas entre
+ * réplicas). Todos parten de spring.datasource.* y se ajustan con app.datasource.escritura.*
+ * y app.datasource.lectura.*
  */
 @Configuration
 @EnableJpaRepositories(basePackages = "com.noe.apinoe2.repository")
 @EnableTransactionManagement
 public class DataBaseConfig {
 
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+
+    @Value("${app.datasource.max-concurrencia:0}")
+    private int maxConcurrencia;
+
+    @Value("${app.datasource.espera-maxima:30s}")
+    private Duration esperaMaxima;
+
+    @Value("${app.datasource.retencion-maxima:2s}")
+    private Duration retencionMaxima;
+
+    public DataBaseConfig(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
     @Bean
     @ConfigurationProperties(prefix = "spring.datasource")
-    public DataSource dataSource() {
-        return DataSourceBuilder.create().build();
+    public HikariConfig hikariConfig() {
+        return new HikariConfig();
+    }
+
+    @Bean
+    public HikariDataSource escrituraDataSource(HikariConfig hikariConfig) {
+        return crearPool(hikariConfig, "escritura", false);
+    }
+
+    /**
+     * Lecturas (transacciones readOnly): réplicas de app.datasource.lectura.replicas, cada una
+     * configurada con app.datasource.lectura.* y app.datasource.lectura.<réplica>.*; sin réplicas,
+     * un único pool de lectura contra spring.datasource.jdbc-url
+     */
+    @Bean
+    public ReplicaRoutingDataSource lecturaDataSource(HikariConfig hikariConfig,
+                                                      @Qualifier("escrituraDataSource") HikariDataSource escritura) {
+        List<String> nombres = Binder.get(environment)
+                .bind("app.datasource.lectura.replicas", Bindable.listOf(String.class))
+                .orElse(List.of());
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        if (nombres.isEmpty()) {
+            HikariDataSource pool = crearPool(hikariConfig, "lectura", true);
+            replicas.add(new ReplicaRoutingDataSource.Replica("lectura", pool, instrumentar(pool)));
+        }
+        for (String nombre : nombres) {
+            HikariDataSource pool = crearPool(hikariConfig, "lectura-" + nombre, true, "lectura", "lectura." + nombre);
+            replicas.add(new ReplicaRoutingDataSource.Replica(nombre, pool, instrumentar(pool)));
+        }
+        return new ReplicaRoutingDataSource(replicas, instrumentar(escritura), meterRegistry);
+    }
+
+    /**
+     * DataSource de la aplicación: la conexión física se obtiene en la primera sentencia,
+     * cuando ya se sabe si la transacción es de solo lectura, y se toma del pool que corresponda
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("lecturaDataSource") ReplicaRoutingDataSource lectura) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(lectura.getPrimaria());
+        dataSource.setReadOnlyDataSource(lectura);
+        return dataSource;
+    }
+
+    /**
+     * Lectura de las propias escrituras: tras una escritura, las lecturas del mismo cliente
+     * van al primario durante app.datasource.lectura-tras-escritura (0 lo desactiva)
+     */
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${app.datasource.lectura-tras-escritura:5s}") Duration ventana) {
+        return new ReadYourWritesFilter(ventana);
+    }
+
+    /**
+     * El filtro solo debe ejecutarse dentro de la cadena de seguridad, no también como filtro de servlet
+     */
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilterRegistration(ReadYourWritesFilter filtro) {
+        FilterRegistrationBean<ReadYourWritesFilter> registro = new FilterRegistrationBean<>(filtro);
+        registro.setEnabled(false);
+        return registro;
+    }
+
+    /**
+     * @param ajustes Prefijos bajo app.datasource. aplicados en orden; por defecto, el nombre del pool
+     */
+    private HikariDataSource crearPool(HikariConfig base, String nombre, boolean soloLectura, String... ajustes) {
+        HikariConfig config = new HikariConfig();
+        base.copyStateTo(config);
+        for (String ajuste : ajustes.length > 0 ? ajustes : new String[] {nombre}) {
+            Binder.get(environment).bind("app.datasource." + ajuste, Bindable.ofInstance(config));
+        }
+        config.setPoolName("apinoe2-" + nombre);
+        config.setReadOnly(soloLectura);
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Métricas de adquisición y retención; en modo de hilos virtuales, además,
+     * limitador de concurrencia para que las peticiones esperen turno sin saturar el pool
+     */
+    private DataSource instrumentar(HikariDataSource pool) {
+        DataSource dataSource = pool;
+        if (hilosVirtuales) {
+            int limite = maxConcurrencia > 0 ? maxConcurrencia : pool.getMaximumPoolSize();
+            ConcurrencyLimitedDataSource limitado = new ConcurrencyLimitedDataSource(pool, limite, esperaMaxima);
+            Gauge.builder("db.connection.limiter.waiting", limitado, ConcurrencyLimitedDataSource::getEsperando)
+                    .description("Hilos esperando turno en el limitador de conexiones")
+                    .tag("pool", pool.getPoolName())
+                    .register(meterRegistry);
+            dataSource = limitado;
+        }
+        return new InstrumentedDataSource(dataSource, meterRegistry, pool.getPoolName(), retencionMaxima);
     }
 }
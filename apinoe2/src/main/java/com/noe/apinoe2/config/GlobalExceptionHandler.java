@@ -3,8 +3,11 @@ package com.noe.apinoe2.config;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -13,6 +16,9 @@ import org.springframework.web.context.request.WebRequest;
 
 import com.noe.apinoe2.dto.ApiResponse;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Manejo global de excepciones
  * Captura todas las excepciones y devuelve respuestas consistentes
@@ -21,13 +27,19 @@ import com.noe.apinoe2.dto.ApiResponse;
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
      * Maneja errores de validación (@Valid)
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Map<String, String>>> handleValidationErrors(
             MethodArgumentNotValidException ex) {
-        
+        contarError(ex, HttpStatus.BAD_REQUEST);
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
@@ -45,18 +57,52 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiResponse<String>> handleIllegalArgument(
             IllegalArgumentException ex, WebRequest request) {
-        
+        contarError(ex, HttpStatus.BAD_REQUEST);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(ApiResponse.error(ex.getMessage()));
     }
 
+    /**
+     * Cuerpo de la petición mal formado (JSON o parche no legible)
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiResponse<String>> handleNotReadable(
+            HttpMessageNotReadableException ex, WebRequest request) {
+        contarError(ex, HttpStatus.BAD_REQUEST);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Cuerpo de la petición no válido"));
+    }
+
+    /**
+     * Conflicto de concurrencia optimista: otra petición modificó el recurso entretanto
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<String>> handleOptimisticLocking(
+            OptimisticLockingFailureException ex, WebRequest request) {
+        contarError(ex, HttpStatus.CONFLICT);
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("El recurso ha sido modificado por otra petición; vuelva a leerlo e inténtelo de nuevo"));
+    }
+
+    /**
+     * Restricción de la base de datos violada: normalmente un email o Google ID que otra
+     * petición (o instancia) registró después de las comprobaciones previas
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiResponse<String>> handleDataIntegrityViolation(
+            DataIntegrityViolationException ex, WebRequest request) {
+        contarError(ex, HttpStatus.CONFLICT);
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("Los datos entran en conflicto con un registro existente (email o Google ID ya en uso)"));
+    }
+
     /**
      * Maneja excepciones de runtime generales
      */
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiResponse<String>> handleRuntimeException(
             RuntimeException ex, WebRequest request) {
-        
+        contarError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Error interno del servidor: " + ex.getMessage()));
     }
@@ -67,8 +113,20 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse<String>> handleGlobalException(
             Exception ex, WebRequest request) {
-        
+        contarError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Error inesperado: " + ex.getMessage()));
     }
-}
\ No newline at end of file
+
+    /**
+     * Cuenta los errores devueltos por tipo de excepción y estado HTTP
+     */
+    private void contarError(Exception ex, HttpStatus status) {
+        Counter.builder("api.errores")
+                .description("Errores devueltos por la API")
+                .tag("tipo", ex.getClass().getSimpleName())
+                .tag("estado", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,79 @@
+package com.noe.apinoe2.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Índice único filtrado sobre usuarios.google_id en SQL Server
+ * Un índice único normal de SQL Server solo admite un NULL, y JPA no puede declarar el filtro:
+ * Hibernate crea idx_usuarios_google_id sin unicidad y aquí se sustituye (una sola vez) por la versión
+ * filtrada. Es la garantía de unicidad entre instancias; las comprobaciones previas del
+ * servicio solo dan un error más claro. Si el índice no se puede crear (por ejemplo, por
+ * Google IDs duplicados) la aplicación no arranca: hay que resolverlos y reiniciar.
+ * Solo SQL Server está soportado en producción: con otros motores (H2 en pruebas) la base de
+ * datos no impone la unicidad de google_id y se avisa al arrancar.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class GoogleIdIndexInitializer implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(GoogleIdIndexInitializer.class);
+
+    /**
+     * Las cadenas vacías equivalen a "sin Google ID" en el servicio y no cuentan como duplicado
+     */
+    private static final String INDICE_FILTRADO = """
+            SET XACT_ABORT ON;
+            IF OBJECT_ID('usuarios') IS NOT NULL AND NOT EXISTS (
+                    SELECT 1 FROM sys.indexes
+                    WHERE object_id = OBJECT_ID('usuarios') AND name = 'idx_usuarios_google_id'
+                      AND is_unique = 1 AND has_filter = 1)
+            BEGIN
+                BEGIN TRANSACTION;
+                IF EXISTS (SELECT 1 FROM sys.indexes
+                           WHERE object_id = OBJECT_ID('usuarios') AND name = 'idx_usuarios_google_id')
+                    DROP INDEX idx_usuarios_google_id ON usuarios;
+                CREATE UNIQUE INDEX idx_usuarios_google_id ON usuarios (google_id)
+                    WHERE google_id IS NOT NULL AND google_id <> '';
+                COMMIT TRANSACTION;
+            END
+            """;
+
+    private final DataSource dataSource;
+
+    public GoogleIdIndexInitializer(@Qualifier("escrituraDataSource") DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        if (!esSqlServer()) {
+            log.warn("Base de datos no soportada en producción: la unicidad de usuarios.google_id "
+                    + "no está garantizada por la base de datos (solo por las comprobaciones del servicio)");
+            return;
+        }
+        try {
+            new JdbcTemplate(dataSource).execute(INDICE_FILTRADO);
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("No se pudo crear el índice único filtrado idx_usuarios_google_id "
+                    + "(¿Google IDs duplicados?); resuélvalos y reinicie", e);
+        }
+    }
+
+    private boolean esSqlServer() throws SQLException {
+        try (Connection conexion = dataSource.getConnection()) {
+            return conexion.getMetaData().getDatabaseProductName().startsWith("Microsoft SQL Server");
+        }
+    }
+}
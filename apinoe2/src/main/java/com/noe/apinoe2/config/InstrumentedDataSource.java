@@ -0,0 +1,121 @@
+package com.noe.apinoe2.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * DataSource que mide cuánto tarda en obtenerse cada conexión y cuánto tiempo se retiene,
+ * etiquetando la retención con la transacción (servicio.método) que la usó.
+ * Las retenciones por encima del máximo configurado se cuentan y se registran como aviso.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(InstrumentedDataSource.class);
+
+    private static final String SIN_TRANSACCION = "sin-transaccion";
+
+    private final MeterRegistry registry;
+    private final String pool;
+    private final long retencionMaximaNanos;
+    private final Timer adquisicion;
+    private final Counter retencionesExcedidas;
+    private final Map<String, Timer> retencionPorTransaccion = new ConcurrentHashMap<>();
+
+    public InstrumentedDataSource(DataSource target, MeterRegistry registry, String pool, Duration retencionMaxima) {
+        super(target);
+        this.registry = registry;
+        this.pool = pool;
+        this.retencionMaximaNanos = retencionMaxima.toNanos();
+        this.adquisicion = Timer.builder("db.connection.acquire")
+                .description("Tiempo hasta obtener una conexión, incluida la espera en el limitador")
+                .tag("pool", pool)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.retencionesExcedidas = Counter.builder("db.connection.hold.exceeded")
+                .description("Conexiones retenidas más tiempo que el máximo configurado")
+                .tag("pool", pool)
+                .register(registry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long inicio = System.nanoTime();
+        Connection conexion = super.getConnection();
+        return instrumentar(conexion, inicio);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long inicio = System.nanoTime();
+        Connection conexion = super.getConnection(username, password);
+        return instrumentar(conexion, inicio);
+    }
+
+    private Connection instrumentar(Connection conexion, long inicio) {
+        long obtenida = System.nanoTime();
+        adquisicion.record(obtenida - inicio, TimeUnit.NANOSECONDS);
+        // El nombre se captura ahora: al cerrar la conexión la sincronización ya se ha limpiado
+        String transaccion = nombreTransaccion();
+        AtomicBoolean cerrada = new AtomicBoolean(false);
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, metodo, args) -> {
+                    try {
+                        return metodo.invoke(conexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        if ("close".equals(metodo.getName()) && cerrada.compareAndSet(false, true)) {
+                            registrarRetencion(transaccion, System.nanoTime() - obtenida);
+                        }
+                    }
+                });
+    }
+
+    private void registrarRetencion(String transaccion, long nanos) {
+        retencionPorTransaccion.computeIfAbsent(transaccion, t -> Timer.builder("db.connection.hold")
+                        .description("Tiempo que una transacción retiene la conexión")
+                        .tag("pool", pool)
+                        .tag("transaccion", t)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos > retencionMaximaNanos) {
+            retencionesExcedidas.increment();
+            log.warn("Conexión del pool {} retenida {} ms por {}", pool,
+                    TimeUnit.NANOSECONDS.toMillis(nanos), transaccion);
+        }
+    }
+
+    /**
+     * Nombre corto de la transacción actual (Clase.metodo) o "sin-transaccion"
+     */
+    private static String nombreTransaccion() {
+        String nombre = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (nombre == null) {
+            return SIN_TRANSACCION;
+        }
+        int metodo = nombre.lastIndexOf('.');
+        int clase = metodo > 0 ? nombre.lastIndexOf('.', metodo - 1) : -1;
+        return nombre.substring(clase + 1);
+    }
+}
@@ -0,0 +1,161 @@
+package com.noe.apinoe2.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noe.apinoe2.dto.ApiResponse;
+import com.noe.apinoe2.util.AimdLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Control de admisión de la API: un límite de concurrencia adaptativo por grupo de rutas
+ * (lecturas, escrituras, búsquedas y estadísticas). Las peticiones que exceden el límite
+ * se rechazan al instante con 503 y Retry-After en lugar de encolarse hasta agotar los
+ * hilos y el pool de conexiones. Se configura con app.limitador.<grupo>.*
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    public static final String LECTURAS = "lecturas";
+    public static final String ESCRITURAS = "escrituras";
+    public static final String BUSQUEDAS = "busquedas";
+    public static final String ESTADISTICAS = "estadisticas";
+
+    /**
+     * Configuración de un grupo de rutas
+     */
+    @Getter
+    @Setter
+    public static class Grupo {
+        private int limiteInicial;
+        private int limiteMinimo;
+        private int limiteMaximo;
+        private Duration latenciaObjetivo;
+        private double factorReduccion = 0.9;
+
+        Grupo(int limiteInicial, int limiteMinimo, int limiteMaximo, Duration latenciaObjetivo) {
+            this.limiteInicial = limiteInicial;
+            this.limiteMinimo = limiteMinimo;
+            this.limiteMaximo = limiteMaximo;
+            this.latenciaObjetivo = latenciaObjetivo;
+        }
+    }
+
+    private final boolean habilitado;
+    private final long reintentarTrasSegundos;
+    private final ObjectMapper objectMapper;
+    private final Map<String, AimdLimiter> limitadores = new LinkedHashMap<>();
+    private final Map<String, Counter> rechazadas = new LinkedHashMap<>();
+
+    public LoadSheddingFilter(Environment environment, MeterRegistry registry, ObjectMapper objectMapper) {
+        Binder binder = Binder.get(environment);
+        this.habilitado = binder.bind("app.limitador.enabled", Boolean.class).orElse(true);
+        this.reintentarTrasSegundos = binder.bind("app.limitador.retry-after", Duration.class)
+                .orElse(Duration.ofSeconds(1)).toSeconds();
+        this.objectMapper = objectMapper;
+
+        Map<String, Grupo> porDefecto = Map.of(
+                LECTURAS, new Grupo(100, 10, 400, Duration.ofMillis(250)),
+                ESCRITURAS, new Grupo(50, 5, 200, Duration.ofMillis(500)),
+                BUSQUEDAS, new Grupo(50, 5, 200, Duration.ofMillis(300)),
+                ESTADISTICAS, new Grupo(20, 2, 50, Duration.ofMillis(100)));
+        for (String nombre : new String[] {LECTURAS, ESCRITURAS, BUSQUEDAS, ESTADISTICAS}) {
+            Grupo grupo = porDefecto.get(nombre);
+            binder.bind("app.limitador." + nombre, Bindable.ofInstance(grupo));
+            AimdLimiter limitador = new AimdLimiter(grupo.getLimiteInicial(), grupo.getLimiteMinimo(),
+                    grupo.getLimiteMaximo(), grupo.getLatenciaObjetivo().toNanos(), grupo.getFactorReduccion());
+            limitadores.put(nombre, limitador);
+
+            Gauge.builder("api.limiter.limit", limitador, AimdLimiter::getLimite)
+                    .description("Límite de concurrencia actual del grupo de rutas")
+                    .tag("grupo", nombre)
+                    .register(registry);
+            Gauge.builder("api.limiter.inflight", limitador, AimdLimiter::getEnCurso)
+                    .description("Peticiones en curso del grupo de rutas")
+                    .tag("grupo", nombre)
+                    .register(registry);
+            rechazadas.put(nombre, Counter.builder("api.limiter.rejected")
+                    .description("Peticiones rechazadas por exceder el límite de concurrencia")
+                    .tag("grupo", nombre)
+                    .register(registry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !habilitado || grupo(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String grupo = grupo(request);
+        AimdLimiter limitador = limitadores.get(grupo);
+        if (!limitador.tryAcquire()) {
+            rechazadas.get(grupo).increment();
+            rechazar(response);
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        boolean fallo = true;
+        try {
+            filterChain.doFilter(request, response);
+            fallo = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            limitador.release(System.nanoTime() - inicio, fallo);
+        }
+    }
+
+    /**
+     * Grupo de la petición o null si no se limita (fuera de /api o respuestas de larga duración)
+     */
+    private static String grupo(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        if (!ruta.startsWith("/api/") || ruta.endsWith("/exportar") || ruta.endsWith("/eventos")) {
+            return null;
+        }
+        String metodo = request.getMethod();
+        if (HttpMethod.OPTIONS.matches(metodo)) {
+            return null;
+        }
+        if (!HttpMethod.GET.matches(metodo) && !HttpMethod.HEAD.matches(metodo)) {
+            return ESCRITURAS;
+        }
+        if (ruta.contains("/estadisticas")) {
+            return ESTADISTICAS;
+        }
+        if (ruta.contains("/buscar")) {
+            return BUSQUEDAS;
+        }
+        return LECTURAS;
+    }
+
+    private void rechazar(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, reintentarTrasSegundos)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ApiResponse.error("Servicio saturado, reintente en unos segundos"));
+    }
+}
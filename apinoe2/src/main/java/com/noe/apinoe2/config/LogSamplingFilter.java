@@ -0,0 +1,55 @@
+package com.noe.apinoe2.config;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Marca las peticiones cuyo log de depuración (SQL, seguridad) debe escribirse:
+ * una fracción aleatoria configurable o las que traen la cabecera de depuración
+ * La cabecera está desactivada por defecto: no distingue clientes de confianza
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LogSamplingFilter extends OncePerRequestFilter {
+
+    @Value("${app.logging.muestreo.probabilidad:0}")
+    private double probabilidad;
+
+    @Value("${app.logging.muestreo.cabecera:}")
+    private String cabecera;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!muestrear(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        MDC.put(LogSamplingTurboFilter.MDC_MUESTREO, "1");
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(LogSamplingTurboFilter.MDC_MUESTREO);
+        }
+    }
+
+    private boolean muestrear(HttpServletRequest request) {
+        if (StringUtils.hasText(cabecera) && "true".equalsIgnoreCase(request.getHeader(cabecera))) {
+            return true;
+        }
+        return probabilidad > 0 && ThreadLocalRandom.current().nextDouble() < probabilidad;
+    }
+}
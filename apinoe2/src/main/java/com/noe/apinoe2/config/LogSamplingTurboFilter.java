@@ -0,0 +1,48 @@
+package com.noe.apinoe2.config;
+
+import java.util.Arrays;
+
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Habilita DEBUG/TRACE de los loggers muestreados (SQL, seguridad...) solo en las peticiones
+ * marcadas por {@link LogSamplingFilter}. En el resto se aplica el nivel configurado (INFO),
+ * de modo que el coste por sentencia es una comparación de nivel.
+ * Se registra en logback-spring.xml
+ */
+public class LogSamplingTurboFilter extends TurboFilter {
+
+    public static final String MDC_MUESTREO = "muestreo";
+
+    private String[] loggers = new String[0];
+
+    /**
+     * Prefijos de logger separados por comas
+     */
+    public void setLoggers(String loggers) {
+        this.loggers = Arrays.stream(loggers.split(","))
+                .map(String::trim)
+                .filter(prefijo -> !prefijo.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.INFO) || MDC.get(MDC_MUESTREO) == null) {
+            return FilterReply.NEUTRAL;
+        }
+        String nombre = logger.getName();
+        for (String prefijo : loggers) {
+            if (nombre.startsWith(prefijo)) {
+                return FilterReply.ACCEPT;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
@@ -0,0 +1,82 @@
+package com.noe.apinoe2.config;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import com.noe.apinoe2.util.PrimaryReads;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Lectura de las propias escrituras con réplicas: cada escritura en /api deja una cookie con
+ * el instante hasta el que ese cliente debe leer del primario; mientras no venza, sus lecturas
+ * se ejecutan con {@link PrimaryReads} y no ven el retraso de replicación
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE = "apinoe2-lectura-primaria";
+
+    private final Duration ventana;
+
+    public ReadYourWritesFilter(Duration ventana) {
+        this.ventana = ventana;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return ventana.isZero() || ventana.isNegative()
+                || !request.getRequestURI().startsWith(request.getContextPath() + "/api/")
+                || HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String metodo = request.getMethod();
+        if (!HttpMethod.GET.matches(metodo) && !HttpMethod.HEAD.matches(metodo)) {
+            // Antes de la cadena: después la respuesta puede estar ya confirmada
+            long hasta = System.currentTimeMillis() + ventana.toMillis();
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, Long.toString(hasta))
+                    .path(request.getContextPath() + "/api")
+                    .maxAge(Duration.ofSeconds(Math.max(1, (ventana.toMillis() + 999) / 1000)))
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build()
+                    .toString());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!vigente(WebUtils.getCookie(request, COOKIE))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        PrimaryReads.Ambito ambito = PrimaryReads.abrir();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ambito.close();
+        }
+    }
+
+    private static boolean vigente(Cookie cookie) {
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
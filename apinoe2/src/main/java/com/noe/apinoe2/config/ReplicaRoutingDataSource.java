@@ -0,0 +1,147 @@
+package com.noe.apinoe2.config;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.noe.apinoe2.util.PrimaryReads;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * DataSource de lectura: reparte las conexiones en round-robin entre las réplicas sanas
+ * Una réplica que falla al dar conexión queda fuera hasta que la comprobación periódica
+ * la vuelve a validar. Sin réplicas sanas, o con {@link PrimaryReads} activo, se usa el primario.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final int SEGUNDOS_VALIDACION = 2;
+
+    /**
+     * Réplica: su pool (para comprobaciones y cierre) y el DataSource por el que se piden conexiones
+     */
+    public record Replica(String nombre, HikariDataSource pool, DataSource dataSource) {}
+
+    private static final class Estado {
+        private final Replica replica;
+        private volatile boolean sana = true;
+
+        private Estado(Replica replica) {
+            this.replica = replica;
+        }
+    }
+
+    private final List<Estado> replicas;
+    private final DataSource primaria;
+    private final AtomicInteger siguiente = new AtomicInteger();
+    private final Counter sinReplica;
+    private final Counter lecturaTrasEscritura;
+
+    public ReplicaRoutingDataSource(List<Replica> replicas, DataSource primaria, MeterRegistry registry) {
+        this.replicas = replicas.stream().map(Estado::new).toList();
+        this.primaria = primaria;
+        for (Estado estado : this.replicas) {
+            Gauge.builder("db.replica.healthy", estado, e -> e.sana ? 1 : 0)
+                    .description("1 si la réplica recibe lecturas, 0 si está fuera por fallo")
+                    .tag("replica", estado.replica.nombre())
+                    .register(registry);
+        }
+        this.sinReplica = contador(registry, "sin-replica");
+        this.lecturaTrasEscritura = contador(registry, "lectura-tras-escritura");
+    }
+
+    private static Counter contador(MeterRegistry registry, String motivo) {
+        return Counter.builder("db.replica.primary.reads")
+                .description("Conexiones de solo lectura servidas por el primario")
+                .tag("motivo", motivo)
+                .register(registry);
+    }
+
+    public DataSource getPrimaria() {
+        return primaria;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (PrimaryReads.activas()) {
+            lecturaTrasEscritura.increment();
+            return conectar(primaria, username, password);
+        }
+
+        int total = replicas.size();
+        int inicio = Math.floorMod(siguiente.getAndIncrement(), total);
+        for (int i = 0; i < total; i++) {
+            Estado estado = replicas.get((inicio + i) % total);
+            if (!estado.sana) {
+                continue;
+            }
+            try {
+                return conectar(estado.replica.dataSource(), username, password);
+            } catch (SQLException e) {
+                marcar(estado, false, e);
+            }
+        }
+        sinReplica.increment();
+        return conectar(primaria, username, password);
+    }
+
+    /**
+     * Valida cada réplica con una conexión nueva; las caídas salen del reparto y las recuperadas vuelven
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.lectura.comprobacion:PT5S}",
+               initialDelayString = "${app.datasource.lectura.comprobacion:PT5S}")
+    public void comprobarSalud() {
+        for (Estado estado : replicas) {
+            try (Connection conexion = estado.replica.pool().getConnection()) {
+                marcar(estado, conexion.isValid(SEGUNDOS_VALIDACION), null);
+            } catch (SQLException e) {
+                marcar(estado, false, e);
+            }
+        }
+    }
+
+    public boolean isSana(String nombre) {
+        return replicas.stream().anyMatch(e -> e.replica.nombre().equals(nombre) && e.sana);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(estado -> estado.replica.pool().close());
+    }
+
+    private void marcar(Estado estado, boolean sana, SQLException causa) {
+        if (estado.sana == sana) {
+            return;
+        }
+        estado.sana = sana;
+        if (sana) {
+            log.info("Réplica {} disponible de nuevo para lecturas", estado.replica.nombre());
+        } else {
+            log.warn("Réplica {} fuera del reparto de lecturas: {}", estado.replica.nombre(),
+                    causa != null ? causa.getMessage() : "conexión no válida");
+        }
+    }
+
+    private static Connection conectar(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+}
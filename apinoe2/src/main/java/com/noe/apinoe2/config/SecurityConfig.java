@@ -1,8 +1,10 @@
 package com.noe.apinoe2.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -11,6 +13,11 @@ import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWrite
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 import java.util.Arrays;
 
@@ -35,7 +42,8 @@ public class SecurityConfig {
     private boolean allowCredentials;
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, LoadSheddingFilter loadSheddingFilter,
+                                           ReadYourWritesFilter readYourWritesFilter) throws Exception {
         http
             // Deshabilitar CSRF para APIs REST
             .csrf(csrf -> csrf.disable())
@@ -43,6 +51,12 @@ public class SecurityConfig {
             // Configuración de CORS usando nuestro CorsConfigurationSource
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             
+            // Control de admisión justo después de CORS: los 503 llevan sus cabeceras
+            .addFilterAfter(loadSheddingFilter, CorsFilter.class)
+            
+            // Lecturas del primario para clientes que acaban de escribir (réplicas de lectura)
+            .addFilterAfter(readYourWritesFilter, LoadSheddingFilter.class)
+            
             // Configuración de sesiones (stateless para APIs)
             .sessionManagement(session -> 
                 session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -76,6 +90,22 @@ public class SecurityConfig {
         return http.build();
     }
 
+    @Bean
+    public LoadSheddingFilter loadSheddingFilter(Environment environment, MeterRegistry meterRegistry,
+                                                 ObjectMapper objectMapper) {
+        return new LoadSheddingFilter(environment, meterRegistry, objectMapper);
+    }
+
+    /**
+     * El filtro solo debe ejecutarse dentro de la cadena de seguridad, no también como filtro de servlet
+     */
+    @Bean
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilterRegistration(LoadSheddingFilter loadSheddingFilter) {
+        FilterRegistrationBean<LoadSheddingFilter> registro = new FilterRegistrationBean<>(loadSheddingFilter);
+        registro.setEnabled(false);
+        return registro;
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -93,7 +123,7 @@ public class SecurityConfig {
         configuration.setAllowCredentials(allowCredentials);
         
         // Exponer headers específicos si es necesario
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "ETag", "Last-Modified"));
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
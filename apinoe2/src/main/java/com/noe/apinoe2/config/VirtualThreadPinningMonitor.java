@@ -0,0 +1,69 @@
+package com.noe.apinoe2.config;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Detecta hilos virtuales fijados (pinned) a su hilo portador mediante JFR
+ * Solo se activa en modo de hilos virtuales. Desde Java 24 los bloques synchronized
+ * ya no fijan el hilo, pero sí el código nativo: cualquier bloqueo largo en la ruta
+ * JDBC que aparezca aquí reduce la concurrencia real de la aplicación.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+
+    private final Duration umbral;
+    private final Counter fijados;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry registry,
+                                       @Value("${app.threads.pinning.umbral:20ms}") Duration umbral) {
+        this.umbral = umbral;
+        this.fijados = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Hilos virtuales fijados a su portador más tiempo que el umbral")
+                .register(registry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        stream = new RecordingStream();
+        stream.enable(EVENTO).withThreshold(umbral).withStackTrace();
+        stream.onEvent(EVENTO, this::registrar);
+        stream.startAsync();
+    }
+
+    private void registrar(RecordedEvent evento) {
+        fijados.increment();
+        String pila = evento.getStackTrace() == null ? "" : evento.getStackTrace().getFrames().stream()
+                .limit(8)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .collect(Collectors.joining(" <- "));
+        log.warn("Hilo virtual fijado {} ms: {}", evento.getDuration().toMillis(), pila);
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
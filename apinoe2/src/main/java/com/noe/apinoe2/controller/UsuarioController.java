@@ -1,17 +1,43 @@
 package com.noe.apinoe2.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.noe.apinoe2.controller.base.BaseController;
+import com.noe.apinoe2.dto.ActivacionMasivaRequest;
 import com.noe.apinoe2.dto.ApiResponse;
+import com.noe.apinoe2.dto.CursorPage;
+import com.noe.apinoe2.dto.EstadisticasUsuariosDto;
+import com.noe.apinoe2.dto.SyncPage;
 import com.noe.apinoe2.dto.UsuarioDto;
+import com.noe.apinoe2.dto.UsuarioSyncDto;
 import com.noe.apinoe2.mapper.UsuarioMapper;
 import com.noe.apinoe2.model.Usuario;
 import com.noe.apinoe2.service.UsuarioService;
+import com.noe.apinoe2.service.support.UsuarioEventos;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.validation.Valid;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -23,12 +49,25 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class UsuarioController extends BaseController<Usuario, UsuarioDto, Integer> {
 
+    private static final String DEFAULT_SEARCH_LIMIT = "20";
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
     private final UsuarioService usuarioService;
+    private final UsuarioMapper usuarioMapper;
+    private final ObjectMapper objectMapper;
+    private final UsuarioEventos usuarioEventos;
 
     @Autowired
-    public UsuarioController(UsuarioService usuarioService, UsuarioMapper usuarioMapper) {
+    public UsuarioController(UsuarioService usuarioService, UsuarioMapper usuarioMapper, ObjectMapper objectMapper,
+                             UsuarioEventos usuarioEventos) {
         super(usuarioService, usuarioMapper);
         this.usuarioService = usuarioService;
+        this.usuarioMapper = usuarioMapper;
+        this.objectMapper = objectMapper;
+        this.usuarioEventos = usuarioEventos;
     }
 
     @Override
@@ -36,36 +75,38 @@ public class UsuarioController extends BaseController<Usuario, UsuarioDto, Integ
         return "Usuario";
     }
 
+    @Override
+    protected LocalDateTime getLastModified(Usuario usuario) {
+        return usuario.getFechaActualizacion();
+    }
+
+    @Override
+    protected Object getVersion(Usuario usuario) {
+        return usuario.getVersion();
+    }
+
     // =============== ENDPOINTS ESPECÍFICOS DE USUARIO ===============
     
+    // Listas acotadas a app.listas.max-elementos (ver normalizeListSize); completas con /pagina o /exportar
+    
     @GetMapping("/activos")
-    public ResponseEntity<ApiResponse<List<UsuarioDto>>> getUsuariosActivos() {
-        List<Usuario> usuarios = usuarioService.findActivos();
-        List<UsuarioDto> usuariosDto = usuarios.stream()
-                .map(mapper::toDto)
-                .toList();
-        
-        return ResponseEntity.ok(ApiResponse.success(usuariosDto));
+    public ResponseEntity<ApiResponse<List<UsuarioDto>>> getUsuariosActivos(@RequestParam(required = false) Integer limite,
+                                                                           ServletWebRequest request) {
+        int tope = normalizeListSize(limite);
+        return cachedResponse("activos-" + tope, request,
+                () -> listResponse(usuarioService.findActivos(UsuarioDto.class, tope + 1), tope));
     }
     
     @GetMapping("/inactivos")
-    public ResponseEntity<ApiResponse<List<UsuarioDto>>> getUsuariosInactivos() {
-        List<Usuario> usuarios = usuarioService.findInactivos();
-        List<UsuarioDto> usuariosDto = usuarios.stream()
-                .map(mapper::toDto)
-                .toList();
-        
-        return ResponseEntity.ok(ApiResponse.success(usuariosDto));
+    public ResponseEntity<ApiResponse<List<UsuarioDto>>> getUsuariosInactivos(@RequestParam(required = false) Integer limite) {
+        int tope = normalizeListSize(limite);
+        return ResponseEntity.ok(listResponse(usuarioService.findInactivos(UsuarioDto.class, tope + 1), tope));
     }
     
     @GetMapping("/recientes")
-    public ResponseEntity<ApiResponse<List<UsuarioDto>>> getUsuariosRecientes() {
-        List<Usuario> usuarios = usuarioService.findActivosRecientes();
-        List<UsuarioDto> usuariosDto = usuarios.stream()
-                .map(mapper::toDto)
-                .toList();
-        
-        return ResponseEntity.ok(ApiResponse.success(usuariosDto));
+    public ResponseEntity<ApiResponse<List<UsuarioDto>>> getUsuariosRecientes(@RequestParam(required = false) Integer limite) {
+        int tope = normalizeListSize(limite);
+        return ResponseEntity.ok(listResponse(usuarioService.findActivosRecientes(UsuarioDto.class, tope + 1), tope));
     }
 
     @GetMapping("/email/{email}")
@@ -81,6 +122,32 @@ public class UsuarioController extends BaseController<Usuario, UsuarioDto, Integ
         }
     }
 
+    /**
+     * Alta o actualización del usuario que inicia sesión con Google, en una sola petición
+     * Si el perfil no ha cambiado se responde desde la caché sin escribir; si no, un MERGE
+     * crea el usuario (201) o actualiza nombre e imagen (200) de forma atómica
+     */
+    @PostMapping("/login/google")
+    public ResponseEntity<ApiResponse<UsuarioDto>> loginGoogle(@Valid @RequestBody UsuarioDto dto) {
+        if (dto.getGoogleId() == null || dto.getGoogleId().isBlank()) {
+            throw new IllegalArgumentException("El Google ID es obligatorio");
+        }
+
+        Optional<Usuario> actual = usuarioService.findByGoogleId(dto.getGoogleId());
+        if (actual.isPresent() && Objects.equals(actual.get().getNombre(), dto.getNombre())
+                && Objects.equals(actual.get().getImagenUrl(), dto.getImagenUrl())) {
+            return ResponseEntity.ok(ApiResponse.success(mapper.toDto(actual.get())));
+        }
+
+        UsuarioService.Provision provision = usuarioService.provisionarGoogle(mapper.toEntity(dto));
+        UsuarioDto usuarioDto = mapper.toDto(provision.usuario());
+        if (provision.creado()) {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success("Usuario creado exitosamente", usuarioDto));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Usuario actualizado exitosamente", usuarioDto));
+    }
+
     @GetMapping("/google/{googleId}")
     public ResponseEntity<ApiResponse<UsuarioDto>> getUsuarioByGoogleId(@PathVariable String googleId) {
         Optional<Usuario> usuario = usuarioService.findByGoogleId(googleId);
@@ -94,12 +161,16 @@ public class UsuarioController extends BaseController<Usuario, UsuarioDto, Integ
         }
     }
 
+    /**
+     * Búsqueda por nombre (subcadena) resuelta con el índice en memoria, ordenada por relevancia
+     */
     @GetMapping("/buscar")
     public ResponseEntity<ApiResponse<List<UsuarioDto>>> buscarUsuarios(
             @RequestParam String nombre,
-            @RequestParam(required = false, defaultValue = "true") boolean activo) {
+            @RequestParam(required = false, defaultValue = "true") boolean activo,
+            @RequestParam(required = false, defaultValue = DEFAULT_SEARCH_LIMIT) int limite) {
         
-        List<Usuario> usuarios = usuarioService.findByNombreAndActivo(nombre, activo);
+        List<Usuario> usuarios = usuarioService.buscarPorNombre(nombre, activo, normalizeSearchLimit(limite));
         List<UsuarioDto> usuariosDto = usuarios.stream()
                 .map(mapper::toDto)
                 .toList();
@@ -107,11 +178,15 @@ public class UsuarioController extends BaseController<Usuario, UsuarioDto, Integ
         return ResponseEntity.ok(ApiResponse.success(usuariosDto));
     }
     
+    /**
+     * Búsqueda por email (subcadena) resuelta con el índice en memoria, ordenada por relevancia
+     */
     @GetMapping("/buscar/email")
     public ResponseEntity<ApiResponse<List<UsuarioDto>>> buscarUsuariosPorEmail(
-            @RequestParam String email) {
+            @RequestParam String email,
+            @RequestParam(required = false, defaultValue = DEFAULT_SEARCH_LIMIT) int limite) {
         
-        List<Usuario> usuarios = usuarioService.findByEmailContaining(email);
+        List<Usuario> usuarios = usuarioService.buscarPorEmail(email, normalizeSearchLimit(limite));
         List<UsuarioDto> usuariosDto = usuarios.stream()
                 .map(mapper::toDto)
                 .toList();
@@ -119,6 +194,131 @@ public class UsuarioController extends BaseController<Usuario, UsuarioDto, Integ
         return ResponseEntity.ok(ApiResponse.success(usuariosDto));
     }
 
+    private int normalizeSearchLimit(int limite) {
+        return Math.max(1, Math.min(limite, MAX_SEARCH_LIMIT));
+    }
+
+    // =============== ENDPOINTS PAGINADOS (CURSOR) ===============
+    
+    @GetMapping("/activos/pagina")
+    public ResponseEntity<ApiResponse<CursorPage<UsuarioDto>>> getUsuariosActivosPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPage<Usuario> page = usuarioService.findActivosPage(cursor, normalizePageSize(size));
+        
+        return ResponseEntity.ok(ApiResponse.success(page.map(mapper::toDto)));
+    }
+    
+    @GetMapping("/inactivos/pagina")
+    public ResponseEntity<ApiResponse<CursorPage<UsuarioDto>>> getUsuariosInactivosPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPage<Usuario> page = usuarioService.findInactivosPage(cursor, normalizePageSize(size));
+        
+        return ResponseEntity.ok(ApiResponse.success(page.map(mapper::toDto)));
+    }
+    
+    @GetMapping("/recientes/pagina")
+    public ResponseEntity<ApiResponse<CursorPage<UsuarioDto>>> getUsuariosRecientesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPage<Usuario> page = usuarioService.findActivosRecientesPage(cursor, normalizePageSize(size));
+        
+        return ResponseEntity.ok(ApiResponse.success(page.map(mapper::toDto)));
+    }
+    
+    @GetMapping("/buscar/pagina")
+    public ResponseEntity<ApiResponse<CursorPage<UsuarioDto>>> buscarUsuariosPage(
+            @RequestParam String nombre,
+            @RequestParam(required = false, defaultValue = "true") boolean activo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        CursorPage<Usuario> page = usuarioService.findByNombreAndActivoPage(nombre, activo, cursor, normalizePageSize(size));
+        
+        return ResponseEntity.ok(ApiResponse.success(page.map(mapper::toDto)));
+    }
+
+    // =============== EXPORTACIÓN EN STREAMING ===============
+    
+    /**
+     * Exporta todos los usuarios escribiendo cada fila en la respuesta según se lee de la base de datos
+     * @param formato ndjson (un objeto JSON por línea) o csv
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarUsuarios(
+            @RequestParam(required = false, defaultValue = "ndjson") String formato) {
+        
+        StreamingResponseBody body;
+        MediaType mediaType;
+        switch (formato.toLowerCase()) {
+            case "ndjson" -> {
+                body = this::escribirNdjson;
+                mediaType = NDJSON;
+            }
+            case "csv" -> {
+                body = this::escribirCsv;
+                mediaType = CSV;
+            }
+            default -> throw new IllegalArgumentException("Formato de exportación no soportado: " + formato);
+        }
+        
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"usuarios." + formato.toLowerCase() + "\"")
+                .body(body);
+    }
+    
+    private void escribirNdjson(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(UsuarioDto.class);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Cada fila termina en salto de línea; sin separador extra entre objetos raíz
+            generator.setRootValueSeparator(null);
+            usuarioService.exportar(usuario -> {
+                try {
+                    writer.writeValue(generator, mapper.toDto(usuario));
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+    
+    private void escribirCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("nombre,email,googleId,imagenUrl\n");
+        usuarioService.exportar(usuario -> {
+            UsuarioDto dto = mapper.toDto(usuario);
+            try {
+                writer.write(csv(dto.getNombre()));
+                writer.write(',');
+                writer.write(csv(dto.getEmail()));
+                writer.write(',');
+                writer.write(csv(dto.getGoogleId()));
+                writer.write(',');
+                writer.write(csv(dto.getImagenUrl()));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+    
+    /**
+     * Escapa un valor CSV (RFC 4180): entre comillas si contiene separadores, comillas o saltos de línea
+     */
+    private static String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
     // =============== ENDPOINTS DE ACTIVACIÓN/DESACTIVACIÓN ===============
     
     @PutMapping("/{id}/activar")
@@ -143,8 +343,98 @@ public class UsuarioController extends BaseController<Usuario, UsuarioDto, Integ
         }
     }
     
+    /**
+     * Activa en bloque los usuarios indicados por ids o no actualizados desde una fecha
+     */
+    @PutMapping("/activar")
+    public ResponseEntity<ApiResponse<Integer>> activarUsuarios(@RequestBody ActivacionMasivaRequest request) {
+        int cambiados = cambiarActivoMasivo(request, true);
+        return ResponseEntity.ok(ApiResponse.success(cambiados + " usuarios activados", cambiados));
+    }
+
+    /**
+     * Desactiva en bloque los usuarios indicados por ids o no actualizados desde una fecha
+     */
+    @PutMapping("/desactivar")
+    public ResponseEntity<ApiResponse<Integer>> desactivarUsuarios(@RequestBody ActivacionMasivaRequest request) {
+        int cambiados = cambiarActivoMasivo(request, false);
+        return ResponseEntity.ok(ApiResponse.success(cambiados + " usuarios desactivados", cambiados));
+    }
+
+    private int cambiarActivoMasivo(ActivacionMasivaRequest request, boolean activo) {
+        boolean porIds = request.getIds() != null;
+        boolean porFecha = request.getSinActualizarDesde() != null;
+        if (porIds == porFecha) {
+            throw new IllegalArgumentException("Debe indicarse 'ids' o 'sinActualizarDesde', pero no ambos");
+        }
+        if (porIds) {
+            validateBulkSize(request.getIds().size());
+            return usuarioService.cambiarActivo(request.getIds(), activo);
+        }
+        return usuarioService.cambiarActivoSinActualizarDesde(request.getSinActualizarDesde(), activo);
+    }
+    
+    // =============== SINCRONIZACIÓN INCREMENTAL ===============
+
+    /**
+     * Cambios desde el watermark de la última sincronización (ISO-8601, el devuelto por este
+     * endpoint); sin "desde" devuelve todos los usuarios. Se pagina con nextCursor.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<ApiResponse<SyncPage<UsuarioSyncDto>>> sincronizar(
+            @RequestParam(required = false) String desde,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        SyncPage<Usuario> page = usuarioService.sincronizar(desde, cursor, normalizePageSize(size));
+
+        return ResponseEntity.ok(ApiResponse.success(page.map(usuarioMapper::toSyncDto)));
+    }
+
+    // =============== EVENTOS ===============
+
+    /**
+     * Flujo de cambios (Server-Sent Events): creado, actualizado, activado, desactivado y eliminado
+     * con los ids afectados. Al reconectar, el navegador envía Last-Event-ID y se reciben los
+     * eventos perdidos; si ya no están disponibles llega un evento "reinicio" y hay que recargar.
+     * La conexión dura spring.mvc.async.request-timeout; después el cliente reconecta.
+     */
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter eventos(@RequestHeader(value = "Last-Event-ID", required = false) String ultimoId) {
+        SseEmitter emitter = new SseEmitter();
+        UsuarioEventos.Suscripcion suscripcion = usuarioEventos.suscribir(ultimoId, new UsuarioEventos.Suscriptor() {
+            @Override
+            public void enviar(UsuarioEventos.Evento evento) throws IOException {
+                if (evento.esLatido()) {
+                    emitter.send(SseEmitter.event().comment("latido"));
+                } else {
+                    emitter.send(SseEmitter.event()
+                            .id(evento.id())
+                            .name(evento.tipo())
+                            .data(evento.datos(), MediaType.APPLICATION_JSON));
+                }
+            }
+
+            @Override
+            public void cerrar() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(suscripcion::cancelar);
+        emitter.onTimeout(suscripcion::cancelar);
+        emitter.onError(error -> suscripcion.cancelar());
+        return emitter;
+    }
+
     // =============== ENDPOINTS DE ESTADÍSTICAS ===============
     
+    /**
+     * Activos, inactivos y total en una sola respuesta, sin consultar la base de datos
+     */
+    @GetMapping("/estadisticas")
+    public ResponseEntity<ApiResponse<EstadisticasUsuariosDto>> obtenerEstadisticas() {
+        return ResponseEntity.ok(ApiResponse.success(usuarioService.obtenerEstadisticas()));
+    }
+    
     @GetMapping("/estadisticas/activos")
     public ResponseEntity<ApiResponse<Long>> contarUsuariosActivos() {
         long count = usuarioService.contarActivos();
@@ -182,16 +472,31 @@ public class UsuarioController extends BaseController<Usuario, UsuarioDto, Integ
         usuarioService.validarGoogleIdUnico(dto.getGoogleId(), id);
     }
 
+    /**
+     * Solo consulta la unicidad de las claves que cambian
+     */
+    @Override
+    protected void validateChanges(Integer id, UsuarioDto actual, UsuarioDto nuevo) {
+        if (!Objects.equals(normalizarClave(actual.getEmail()), normalizarClave(nuevo.getEmail()))) {
+            usuarioService.validarEmailUnico(nuevo.getEmail(), id);
+        }
+        if (!Objects.equals(normalizarClave(actual.getGoogleId()), normalizarClave(nuevo.getGoogleId()))) {
+            usuarioService.validarGoogleIdUnico(nuevo.getGoogleId(), id);
+        }
+    }
+
+    private static String normalizarClave(String clave) {
+        return clave == null ? null : clave.trim().toLowerCase(Locale.ROOT);
+    }
+
     @Override
     protected void validateBeforeDelete(Integer id) {
         // Aquí puedes agregar validaciones antes de eliminar
         // Por ejemplo, verificar si el usuario tiene proyectos asociados
-        Optional<Usuario> usuario = usuarioService.findById(id);
-        if (usuario.isPresent()) {
-            // TODO: Verificar dependencias (proyectos, comentarios, etc.)
-            // if (usuario.get().tieneProyectos()) {
-            //     throw new IllegalArgumentException("No se puede eliminar el usuario porque tiene proyectos asociados");
-            // }
-        }
+        // Sin cargar el usuario: la existencia la resuelve el propio DELETE (404 si no afecta a ninguna fila)
+        // TODO: Verificar dependencias (proyectos, comentarios, etc.) con una consulta de existencia
+        // if (usuarioService.tieneProyectos(id)) {
+        //     throw new IllegalArgumentException("No se puede eliminar el usuario porque tiene proyectos asociados");
+        // }
     }
 }
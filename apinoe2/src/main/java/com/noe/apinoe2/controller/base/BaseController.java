@@ -1,23 +1,49 @@
 package com.noe.apinoe2.controller.base;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.noe.apinoe2.dto.ApiResponse;
+import com.noe.apinoe2.dto.BulkItemResult;
+import com.noe.apinoe2.dto.BulkUpdateItem;
+import com.noe.apinoe2.dto.CursorPage;
 import com.noe.apinoe2.mapper.BaseMapper;
 import com.noe.apinoe2.service.BaseService;
+import com.noe.apinoe2.util.JsonMergePatch;
+import com.noe.apinoe2.util.PrimaryReads;
 
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 
 /**
  * Controlador base genérico que proporciona operaciones CRUD estándar
@@ -27,35 +53,110 @@ import jakarta.validation.Valid;
  */
 public abstract class BaseController<E, D, ID> {
 
+    protected static final String DEFAULT_PAGE_SIZE = "50";
+    protected static final int MAX_PAGE_SIZE = 200;
+
     protected final BaseService<E, ID> service;
     protected final BaseMapper<E, D> mapper;
     
+    /**
+     * Clase del DTO, resuelta de los tipos genéricos de la subclase; se usa para leer
+     * proyecciones directamente desde el repositorio
+     */
+    protected final Class<D> dtoClass;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ResponseCache responseCache;
+    
+    @Value("${app.bulk.max-items:10000}")
+    private int maxBulkSize;
+    
+    @Value("${app.listas.max-elementos:1000}")
+    private int maxListSize;
+    
     public BaseController(BaseService<E, ID> service, BaseMapper<E, D> mapper) {
         this.service = service;
         this.mapper = mapper;
+        this.dtoClass = resolveDtoClass();
     }
     
     protected String getEntityName() {
         return "Entidad";
     }
     
+    /**
+     * Lista (primeros elementos por id, como mucho app.listas.max-elementos) con ETag agregado de
+     * la colección: si el cliente ya la tiene se responde 304 sin cargar ni serializar nada; si no,
+     * se lee como proyección al DTO sin cargar entidades. El resto se recorre con /pagina
+     */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<D>>> getAll() {
-        List<E> entities = service.findAll();
-        List<D> dtos = entities.stream()
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
+    public ResponseEntity<ApiResponse<List<D>>> getAll(@RequestParam(required = false) Integer limite,
+                                                       ServletWebRequest request) {
+        int tope = normalizeListSize(limite);
+        if (isNotModified(request, collectionEtag("l" + tope), -1)) {
+            return null;
+        }
         
-        return ResponseEntity.ok(ApiResponse.success(dtos));
+        return ResponseEntity.ok(listResponse(service.findAll(dtoClass, tope + 1), tope));
     }
     
+    /**
+     * Lista paginada por cursor: el coste de cada página no depende de su profundidad
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<ApiResponse<CursorPage<D>>> getPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size,
+            ServletWebRequest request) {
+        if (isNotModified(request, collectionEtag((cursor != null ? cursor : "") + "-" + size), -1)) {
+            return null;
+        }
+        
+        CursorPage<E> page = service.findPage(cursor, normalizePageSize(size));
+        
+        return ResponseEntity.ok(ApiResponse.success(page.map(mapper::toDto)));
+    }
+    
+    /**
+     * Con la respuesta en la caché de bytes no se carga, mapea ni serializa nada;
+     * si no, se serializa una vez, se guarda y se escriben esos mismos bytes
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<D>> getById(@PathVariable ID id) {
-        Optional<E> entity = service.findById(id);
+    public ResponseEntity<ApiResponse<D>> getById(@PathVariable ID id, ServletWebRequest request) {
+        long version = service.getCacheVersion();
+        boolean cacheable = responseCache.accepts(request.getRequest());
+        String key = cacheable ? cacheKey("id:" + id) : null;
+        ResponseCache.Entry cached = cacheable ? responseCache.get(key, version) : null;
+        if (cached != null) {
+            if (!isNotModified(request, cached.etag(), cached.lastModified())) {
+                responseCache.write(cached, request.getResponse());
+            }
+            return null;
+        }
+        
+        // Lo que va a la caché de bytes se lee del primario, no de una réplica con retraso
+        Optional<E> entity = cacheable ? PrimaryReads.ejecutar(() -> service.findById(id)) : service.findById(id);
         
         if (entity.isPresent()) {
-            D dto = mapper.toDto(entity.get());
-            return ResponseEntity.ok(ApiResponse.success(dto));
+            // Validación condicional antes de mapear y serializar
+            String etag = entityEtag(id, entity.get());
+            long lastModified = lastModifiedMillis(entity.get());
+            if (isNotModified(request, etag, lastModified)) {
+                return null;
+            }
+            ApiResponse<D> body = ApiResponse.success(mapper.toDto(entity.get()));
+            cached = cacheable ? responseCache.put(key, version, body, etag, lastModified) : null;
+            if (cached != null) {
+                responseCache.write(cached, request.getResponse());
+                return null;
+            }
+            return ResponseEntity.ok(body);
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(ApiResponse.error(getEntityName() + " no encontrado con id: " + id));
@@ -77,6 +178,10 @@ public abstract class BaseController<E, D, ID> {
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(ApiResponse.error(e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            // Clave única ocupada entre la validación previa y el INSERT (otra petición u otra instancia)
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Ya existe " + getEntityName().toLowerCase() + " con alguno de esos datos únicos"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(ApiResponse.error("Error al crear " + getEntityName().toLowerCase() + ": " + e.getMessage()));
@@ -84,41 +189,121 @@ public abstract class BaseController<E, D, ID> {
     }
     
     @PutMapping("/{id}")
-    public ResponseEntity<ApiResponse<D>> update(@PathVariable ID id, @Valid @RequestBody D dto) {
+    public ResponseEntity<ApiResponse<D>> update(@PathVariable ID id, @Valid @RequestBody D dto,
+                                                 ServletWebRequest request) {
+        return modify(id, request, actual -> dto);
+    }
+    
+    /**
+     * Modificación parcial con JSON Merge Patch (RFC 7396) sobre la representación actual
+     * Los campos ausentes se conservan y los que valen null se eliminan
+     */
+    @PatchMapping(value = "/{id}", consumes = JsonMergePatch.MEDIA_TYPE)
+    public ResponseEntity<ApiResponse<D>> patch(@PathVariable ID id, @RequestBody JsonNode patch,
+                                                ServletWebRequest request) {
+        return modify(id, request, actual -> {
+            D nuevo;
+            try {
+                nuevo = objectMapper.treeToValue(JsonMergePatch.apply(objectMapper.valueToTree(actual), patch), dtoClass);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Parche no válido: " + e.getOriginalMessage());
+            }
+            String errores = validateDto(nuevo);
+            if (errores != null) {
+                throw new IllegalArgumentException(errores);
+            }
+            return nuevo;
+        });
+    }
+    
+    /**
+     * Creación masiva: valida cada elemento y los inserta en lotes dentro de una transacción
+     * Devuelve un resultado por elemento en el mismo orden de la petición
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<ApiResponse<List<BulkItemResult<D>>>> createBulk(@RequestBody List<D> dtos) {
         try {
-            validateBeforeUpdate(id, dto);
+            validateBulkSize(dtos.size());
             
-            Optional<E> existingEntity = service.findById(id);
+            List<BulkItemResult<D>> resultados = new ArrayList<>(Collections.nCopies(dtos.size(), null));
+            List<Integer> posiciones = new ArrayList<>();
+            List<E> entities = new ArrayList<>();
+            for (int i = 0; i < dtos.size(); i++) {
+                String errores = validateDto(dtos.get(i));
+                if (errores != null) {
+                    resultados.set(i, BulkItemResult.error(i, errores));
+                } else {
+                    posiciones.add(i);
+                    entities.add(mapper.toEntity(dtos.get(i)));
+                }
+            }
             
-            if (existingEntity.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(ApiResponse.error(getEntityName() + " no encontrado con id: " + id));
+            for (BulkItemResult<E> resultado : service.saveAll(entities)) {
+                int posicion = posiciones.get(resultado.getIndex());
+                resultados.set(posicion, resultado.map(posicion, mapper::toDto));
             }
             
-            E entity = existingEntity.get();
-            mapper.updateEntityFromDto(entity, dto);
+            return ResponseEntity.ok(ApiResponse.success(bulkSummary(resultados), resultados));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Actualización masiva: cada elemento indica el id y los nuevos datos
+     * Devuelve un resultado por elemento en el mismo orden de la petición
+     */
+    @PutMapping("/bulk")
+    public ResponseEntity<ApiResponse<List<BulkItemResult<D>>>> updateBulk(@RequestBody List<BulkUpdateItem<ID, D>> items) {
+        try {
+            validateBulkSize(items.size());
+            
+            List<BulkItemResult<D>> resultados = new ArrayList<>(Collections.nCopies(items.size(), null));
+            List<Integer> posiciones = new ArrayList<>();
+            List<BulkUpdateItem<ID, E>> cambios = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                BulkUpdateItem<ID, D> item = items.get(i);
+                String errores = item == null ? "Elemento vacío" : validateDto(item.getData());
+                if (errores != null) {
+                    resultados.set(i, BulkItemResult.error(i, errores));
+                } else {
+                    posiciones.add(i);
+                    cambios.add(new BulkUpdateItem<>(item.getId(), mapper.toEntity(item.getData())));
+                }
+            }
             
-            E updatedEntity = service.update(id, entity);
-            D updatedDto = mapper.toDto(updatedEntity);
+            for (BulkItemResult<E> resultado : service.updateAll(cambios)) {
+                int posicion = posiciones.get(resultado.getIndex());
+                resultados.set(posicion, resultado.map(posicion, mapper::toDto));
+            }
             
-            return ResponseEntity.ok(ApiResponse.success(getEntityName() + " actualizado exitosamente", updatedDto));
+            return ResponseEntity.ok(ApiResponse.success(bulkSummary(resultados), resultados));
             
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(ApiResponse.error(getEntityName() + " no encontrado con id: " + id));
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(ApiResponse.error("Error al actualizar " + getEntityName().toLowerCase() + ": " + e.getMessage()));
+                    .body(ApiResponse.error(e.getMessage()));
         }
     }
     
     @DeleteMapping("/{id}")
-    public ResponseEntity<ApiResponse<String>> delete(@PathVariable ID id) {
+    public ResponseEntity<ApiResponse<String>> delete(@PathVariable ID id, ServletWebRequest request) {
         try {
             validateBeforeDelete(id);
             
+            // If-Match solo obliga a leer la entidad cuando el cliente lo envía
+            if (request.getHeader(HttpHeaders.IF_MATCH) != null) {
+                E entity = service.findById(id)
+                        .orElseThrow(() -> new RuntimeException(getEntityName() + " no encontrado con id: " + id));
+                if (request.checkNotModified(entityEtag(id, entity), lastModifiedMillis(entity))) {
+                    return null;
+                }
+            }
+            
             service.deleteById(id);
-            return ResponseEntity.ok(ApiResponse.success(getEntityName() + " eliminado exitosamente", null));
+            return ResponseEntity.ok(ApiResponse.success(
+                    getEntityName() + (service.isSoftDelete() ? " desactivado" : " eliminado") + " exitosamente", null));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(ApiResponse.error(getEntityName() + " no encontrado con id: " + id));
@@ -128,10 +313,240 @@ public abstract class BaseController<E, D, ID> {
         }
     }
     
+    /**
+     * Carga la entidad, calcula el nuevo DTO, lo valida y lo aplica en una sola transacción
+     * del servicio: una lectura y un UPDATE de las columnas que cambian. If-Match se comprueba
+     * contra la entidad cargada (412) y la versión optimista detecta escrituras concurrentes (409)
+     */
+    private ResponseEntity<ApiResponse<D>> modify(ID id, ServletWebRequest request, UnaryOperator<D> cambios) {
+        Optional<E> modificada;
+        try {
+            modificada = service.patch(id, entity -> {
+                if (request.checkNotModified(entityEtag(id, entity), lastModifiedMillis(entity))) {
+                    throw new PreconditionFailedException();
+                }
+                D actual = mapper.toDto(entity);
+                D nuevo = cambios.apply(actual);
+                validateChanges(id, actual, nuevo);
+                mapper.updateEntityFromDto(entity, nuevo);
+            });
+        } catch (PreconditionFailedException e) {
+            // checkNotModified ya ha fijado el estado 412
+            return null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+        
+        if (modificada.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(getEntityName() + " no encontrado con id: " + id));
+        }
+        E entity = modificada.get();
+        return ResponseEntity.ok()
+                .eTag(entityEtag(id, entity))
+                .body(ApiResponse.success(getEntityName() + " actualizado exitosamente", mapper.toDto(entity)));
+    }
+    
+    /**
+     * Aborta la transacción de modificación cuando falla la precondición If-Match
+     */
+    private static class PreconditionFailedException extends RuntimeException {
+        PreconditionFailedException() {
+            super(null, null, false, false);
+        }
+    }
+    
+    /**
+     * Eliminación masiva por ids (borrado lógico si el servicio lo tiene activado)
+     * Pasa las mismas validaciones que la eliminación individual: si alguna falla no se elimina
+     * ninguno. Los ids inexistentes se ignoran; la respuesta indica cuántos se han eliminado
+     */
+    @DeleteMapping("/bulk")
+    public ResponseEntity<ApiResponse<Integer>> deleteBulk(@RequestBody List<ID> ids) {
+        validateBulkSize(ids.size());
+        validateBeforeBulkDelete(ids);
+        int eliminados = service.deleteAllById(ids);
+        return ResponseEntity.ok(ApiResponse.success((service.isSoftDelete() ? "Desactivados " : "Eliminados ")
+                + eliminados + " de " + ids.size() + " elementos", eliminados));
+    }
+    
+    // =============== CACHÉ DE RESPUESTAS ===============
+    
+    /**
+     * Respuesta 200 servida desde la caché de bytes mientras el servicio no registre escrituras
+     */
+    protected <T> ResponseEntity<ApiResponse<T>> cachedResponse(String vista, ServletWebRequest request,
+                                                                 Supplier<ApiResponse<T>> cargar) {
+        // Los bytes cacheados son JSON y la respuesta sin caché depende de Accept (CBOR o Smile)
+        if (request.getResponse() != null) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        long version = service.getCacheVersion();
+        boolean cacheable = responseCache.accepts(request.getRequest());
+        String key = cacheable ? cacheKey(vista) : null;
+        ResponseCache.Entry cached = cacheable ? responseCache.get(key, version) : null;
+        if (cached == null) {
+            // Lo que se cachea se lee del primario: una réplica con retraso lo dejaría obsoleto
+            ApiResponse<T> body = cacheable ? PrimaryReads.ejecutar(cargar) : cargar.get();
+            cached = cacheable ? responseCache.put(key, version, body, null, -1) : null;
+            if (cached == null) {
+                return ResponseEntity.ok(body);
+            }
+        }
+        responseCache.write(cached, request.getResponse());
+        return null;
+    }
+    
+    /**
+     * La clave no consulta la BD: un acierto no hace ningún trabajo. Las escrituras de esta
+     * instancia invalidan por la versión local; las de otras instancias no se ven hasta que
+     * caduca la entrada (app.cache.respuestas.ttl) y los datos con los que se rehace, que en
+     * GET por id pueden venir de la caché de usuarios (app.cache.usuarios.ttl)
+     */
+    private String cacheKey(String vista) {
+        return getEntityName() + ":" + vista;
+    }
+    
+    // =============== PETICIONES CONDICIONALES (ETag / Last-Modified) ===============
+    
+    /**
+     * Fecha de última modificación de la entidad; null si la entidad no la tiene
+     * Las subclases la sobrescriben para habilitar ETag y Last-Modified en recursos individuales
+     */
+    protected LocalDateTime getLastModified(E entity) {
+        return null;
+    }
+    
+    /**
+     * Versión optimista de la entidad; si existe, el ETag se basa en ella en lugar de la fecha
+     */
+    protected Object getVersion(E entity) {
+        return null;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Class<D> resolveDtoClass() {
+        Class<?>[] tipos = GenericTypeResolver.resolveTypeArguments(getClass(), BaseController.class);
+        if (tipos == null || tipos[1] == null) {
+            throw new IllegalStateException("No se pudo resolver el tipo del DTO de " + getClass().getName());
+        }
+        return (Class<D>) tipos[1];
+    }
+    
+    /**
+     * Comprueba If-None-Match / If-Modified-Since y añade los encabezados de validación
+     * Las respuestas pueden guardarse en caché pero deben revalidarse siempre; la representación
+     * depende de Accept (JSON, CBOR o Smile)
+     */
+    private boolean isNotModified(ServletWebRequest request, String etag, long lastModified) {
+        if (etag == null) {
+            return false;
+        }
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return request.checkNotModified(etag, lastModified);
+    }
+    
+    private String entityEtag(ID id, E entity) {
+        Object version = getVersion(entity);
+        if (version != null) {
+            return "\"" + id + "-v" + version + "\"";
+        }
+        long lastModified = lastModifiedMillis(entity);
+        return lastModified < 0 ? null : "\"" + id + "-" + Long.toHexString(lastModified) + "\"";
+    }
+    
+    private long lastModifiedMillis(E entity) {
+        LocalDateTime fecha = getLastModified(entity);
+        return fecha == null ? -1 : fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    /**
+     * ETag de una vista de la colección a partir de su versión agregada
+     */
+    private String collectionEtag(String vista) {
+        String version = service.getCollectionVersion();
+        return version == null ? null : "\"" + version + (vista.isEmpty() ? "" : "-" + vista) + "\"";
+    }
+    
+    /**
+     * Tamaño de las listas no paginadas: por defecto y como máximo app.listas.max-elementos
+     */
+    protected int normalizeListSize(Integer limite) {
+        return limite == null ? maxListSize : Math.max(1, Math.min(limite, maxListSize));
+    }
+    
+    /**
+     * Respuesta de una lista leída con limite + 1 elementos: si sobra el último, se quita y
+     * el mensaje indica que la lista está incompleta
+     */
+    protected <T> ApiResponse<List<T>> listResponse(List<T> elementos, int limite) {
+        if (elementos.size() <= limite) {
+            return ApiResponse.success(elementos);
+        }
+        return ApiResponse.success("Lista limitada a " + limite + " elementos; use la paginación por cursor para obtener el resto",
+                elementos.subList(0, limite));
+    }
+    
+    /**
+     * Limita el tamaño de página solicitado al rango [1, MAX_PAGE_SIZE]
+     */
+    protected int normalizePageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+    
+    protected void validateBulkSize(int size) {
+        if (size > maxBulkSize) {
+            throw new IllegalArgumentException("Se admiten como máximo " + maxBulkSize + " elementos por petición");
+        }
+    }
+    
+    /**
+     * Aplica las validaciones de Bean Validation a un DTO (elementos masivos y parches)
+     * @return Errores concatenados o null si el elemento es válido
+     */
+    private String validateDto(D dto) {
+        if (dto == null) {
+            return "Elemento vacío";
+        }
+        Set<ConstraintViolation<D>> violaciones = validator.validate(dto);
+        if (violaciones.isEmpty()) {
+            return null;
+        }
+        return violaciones.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+    
+    private String bulkSummary(List<BulkItemResult<D>> resultados) {
+        long correctos = resultados.stream().filter(BulkItemResult::isSuccess).count();
+        return "Procesados " + correctos + " de " + resultados.size() + " elementos";
+    }
+    
     // Métodos hook para validaciones personalizadas
     protected void validateBeforeCreate(D dto) {}
     
     protected void validateBeforeUpdate(ID id, D dto) {}
     
+    /**
+     * Validaciones de una modificación (PUT o PATCH) conociendo el estado actual
+     * Por defecto delega en validateBeforeUpdate; las subclases pueden comprobar solo lo que cambia
+     */
+    protected void validateChanges(ID id, D actual, D nuevo) {
+        validateBeforeUpdate(id, nuevo);
+    }
+    
     protected void validateBeforeDelete(ID id) {}
+    
+    /**
+     * Validaciones de una eliminación masiva; por defecto aplica validateBeforeDelete a cada id.
+     * Las subclases pueden sobrescribirla para comprobar todo el conjunto con una sola consulta
+     */
+    protected void validateBeforeBulkDelete(List<ID> ids) {
+        ids.forEach(this::validateBeforeDelete);
+    }
 }
@@ -0,0 +1,45 @@
+package com.noe.apinoe2.controller.base;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Tiempo de cada operación de los controladores que extienden BaseController,
+ * etiquetado por entidad y operación. Mide la lógica del controlador (servicio y mapeo);
+ * la serialización de la respuesta queda fuera y se ve por diferencia con http.server.requests
+ */
+@Aspect
+@Component
+public class ControllerMetricsAspect {
+
+    private final MeterRegistry registry;
+
+    public ControllerMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.noe.apinoe2.controller..*(..)) && target(controller)")
+    public Object medir(ProceedingJoinPoint joinPoint, BaseController<?, ?, ?> controller) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String excepcion = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            excepcion = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("api.controller")
+                    .description("Tiempo de las operaciones de los controladores")
+                    .tag("entidad", controller.getEntityName())
+                    .tag("operacion", joinPoint.getSignature().getName())
+                    .tag("exception", excepcion)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.noe.apinoe2.controller.base;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.noe.apinoe2.dto.ApiResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Caché de respuestas JSON ya serializadas para lecturas frecuentes
+ * Cada entrada guarda los bytes del ApiResponse partidos en el valor de timestamp, que se
+ * inserta al escribir (formateado una vez por segundo). Las entradas llevan la versión de
+ * datos del servicio con la que se leyeron: cualquier escritura confirmada las deja obsoletas.
+ * Las escrituras de otras instancias no cambian esa versión: una entrada puede quedar obsoleta
+ * como mucho el ttl (más la antigüedad de los datos con los que se construyó).
+ */
+@Component
+public class ResponseCache {
+
+    private static final DateTimeFormatter FORMATO_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Timestamp fijo con el que se serializa el sobre para localizar su posición en los bytes
+     */
+    private static final LocalDateTime MARCA = LocalDateTime.of(2000, 1, 1, 0, 0, 0);
+    private static final byte[] CAMPO_MARCA =
+            ("\"timestamp\":\"" + FORMATO_TIMESTAMP.format(MARCA) + "\"").getBytes(StandardCharsets.UTF_8);
+    private static final int INICIO_VALOR = "\"timestamp\":\"".length();
+    private static final int LONGITUD_VALOR = FORMATO_TIMESTAMP.format(MARCA).length();
+
+    /**
+     * Respuesta cacheada: bytes antes y después del valor de timestamp y encabezados de validación
+     */
+    public record Entry(long version, byte[] prefix, byte[] suffix, String etag, long lastModified) {}
+
+    private record TimestampSegundo(long segundo, byte[] bytes) {}
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entry> entradas;
+    private volatile TimestampSegundo timestamp = new TimestampSegundo(-1, null);
+
+    public ResponseCache(ObjectMapper objectMapper, MeterRegistry registry,
+                         @Value("${app.cache.respuestas.max-size:64MB}") DataSize maxSize,
+                         @Value("${app.cache.respuestas.ttl:30s}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        if (maxSize.toBytes() <= 0) {
+            this.entradas = null;
+            return;
+        }
+        this.entradas = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .<String, Entry>weigher((clave, entrada) -> entrada.prefix().length + entrada.suffix().length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, entradas, "respuestas");
+    }
+
+    /**
+     * Solo se sirven bytes cacheados cuando el cliente acepta JSON como tipo preferido
+     */
+    public boolean accepts(HttpServletRequest request) {
+        if (entradas == null) {
+            return false;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        try {
+            List<MediaType> tipos = MediaType.parseMediaTypes(accept);
+            MediaType preferido = null;
+            for (MediaType tipo : tipos) {
+                if (preferido == null || tipo.getQualityValue() > preferido.getQualityValue()) {
+                    preferido = tipo;
+                }
+            }
+            return preferido == null || preferido.includes(MediaType.APPLICATION_JSON);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Entrada vigente para la clave o null si no existe o se leyó con otra versión
+     */
+    public Entry get(String key, long version) {
+        if (entradas == null || version < 0) {
+            return null;
+        }
+        Entry entrada = entradas.getIfPresent(key);
+        return entrada != null && entrada.version() == version ? entrada : null;
+    }
+
+    /**
+     * Serializa la respuesta y la guarda con la versión leída antes de cargar los datos
+     * @return La entrada guardada o null si la respuesta no se puede cachear
+     */
+    public Entry put(String key, long version, ApiResponse<?> body, String etag, long lastModified) {
+        if (entradas == null || version < 0) {
+            return null;
+        }
+        LocalDateTime original = body.getTimestamp();
+        byte[] json;
+        try {
+            body.setTimestamp(MARCA);
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            return null;
+        } finally {
+            body.setTimestamp(original);
+        }
+
+        int marca = ultimaPosicion(json, CAMPO_MARCA);
+        if (marca < 0) {
+            return null;
+        }
+        int inicioValor = marca + INICIO_VALOR;
+        byte[] prefix = new byte[inicioValor];
+        System.arraycopy(json, 0, prefix, 0, inicioValor);
+        byte[] suffix = new byte[json.length - inicioValor - LONGITUD_VALOR];
+        System.arraycopy(json, inicioValor + LONGITUD_VALOR, suffix, 0, suffix.length);
+
+        Entry entrada = new Entry(version, prefix, suffix, etag, lastModified);
+        entradas.put(key, entrada);
+        return entrada;
+    }
+
+    /**
+     * Escribe la respuesta 200 con el timestamp actual
+     */
+    public void write(Entry entrada, HttpServletResponse response) {
+        byte[] ahora = timestampActual();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(entrada.prefix().length + ahora.length + entrada.suffix().length);
+        try {
+            OutputStream salida = response.getOutputStream();
+            salida.write(entrada.prefix());
+            salida.write(ahora);
+            salida.write(entrada.suffix());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] timestampActual() {
+        long segundo = System.currentTimeMillis() / 1000;
+        TimestampSegundo actual = timestamp;
+        if (actual.segundo() != segundo) {
+            actual = new TimestampSegundo(segundo,
+                    FORMATO_TIMESTAMP.format(LocalDateTime.now()).getBytes(StandardCharsets.UTF_8));
+            timestamp = actual;
+        }
+        return actual.bytes();
+    }
+
+    private static int ultimaPosicion(byte[] datos, byte[] patron) {
+        for (int i = datos.length - patron.length; i >= 0; i--) {
+            int j = 0;
+            while (j < patron.length && datos[i + j] == patron[j]) {
+                j++;
+            }
+            if (j == patron.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
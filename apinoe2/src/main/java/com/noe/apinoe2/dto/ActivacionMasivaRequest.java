@@ -0,0 +1,29 @@
+package com.noe.apinoe2.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Petición de activación/desactivación masiva: por lista de ids o por filtro de fecha
+ * Debe indicarse exactamente uno de los dos criterios
+ */
+@Getter
+@Setter
+public class ActivacionMasivaRequest {
+
+    private List<Integer> ids;
+
+    /**
+     * Afecta a los usuarios cuya última actualización es anterior a esta fecha
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime sinActualizarDesde;
+
+    // Constructor por defecto
+    public ActivacionMasivaRequest() {}
+}
@@ -0,0 +1,42 @@
+package com.noe.apinoe2.dto;
+
+import java.util.function.Function;
+
+import lombok.Getter;
+
+/**
+ * Resultado individual de una operación masiva (bulk)
+ * Indica, para la posición del elemento en la petición, si se procesó y con qué resultado
+ * @param <T> Tipo del dato devuelto
+ */
+@Getter
+public class BulkItemResult<T> {
+
+    private final int index;
+    private final boolean success;
+    private final String message;
+    private final T data;
+
+    private BulkItemResult(int index, boolean success, String message, T data) {
+        this.index = index;
+        this.success = success;
+        this.message = message;
+        this.data = data;
+    }
+
+    public static <T> BulkItemResult<T> ok(int index, String message, T data) {
+        return new BulkItemResult<>(index, true, message, data);
+    }
+
+    public static <T> BulkItemResult<T> error(int index, String message) {
+        return new BulkItemResult<>(index, false, message, null);
+    }
+
+    /**
+     * Convierte el dato y reasigna la posición (por ejemplo, entidad a DTO)
+     */
+    public <R> BulkItemResult<R> map(int nuevoIndex, Function<? super T, ? extends R> mapper) {
+        R mapped = data != null ? mapper.apply(data) : null;
+        return new BulkItemResult<>(nuevoIndex, success, message, mapped);
+    }
+}
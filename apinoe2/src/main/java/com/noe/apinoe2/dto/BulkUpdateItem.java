@@ -0,0 +1,25 @@
+package com.noe.apinoe2.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Elemento de una actualización masiva: identificador del registro y datos nuevos
+ * @param <ID> Tipo del identificador
+ * @param <T> Tipo de los datos (DTO o entidad)
+ */
+@Getter
+@Setter
+public class BulkUpdateItem<ID, T> {
+
+    private ID id;
+    private T data;
+
+    // Constructor por defecto
+    public BulkUpdateItem() {}
+
+    public BulkUpdateItem(ID id, T data) {
+        this.id = id;
+        this.data = data;
+    }
+}
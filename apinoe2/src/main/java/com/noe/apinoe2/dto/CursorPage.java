@@ -0,0 +1,46 @@
+package com.noe.apinoe2.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.Getter;
+
+/**
+ * Página de resultados obtenida por paginación keyset (cursor)
+ * El cursor es opaco para el cliente: solo debe reenviarse tal cual para pedir la siguiente página
+ * @param <T> Tipo de los elementos
+ */
+@Getter
+public class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+    private final boolean hasMore;
+
+    private CursorPage(List<T> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Construye la página a partir de las filas leídas con límite size + 1
+     * La fila extra solo indica que hay más resultados y se descarta
+     */
+    public static <T> CursorPage<T> of(List<T> filas, int size, Function<T, String> cursorDe) {
+        boolean hasMore = filas.size() > size;
+        List<T> items = hasMore ? filas.subList(0, size) : filas;
+        String nextCursor = hasMore ? cursorDe.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Convierte los elementos conservando el cursor (por ejemplo, entidad a DTO)
+     */
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream()
+                .<R>map(mapper)
+                .toList();
+        return new CursorPage<>(mapped, nextCursor, hasMore);
+    }
+}
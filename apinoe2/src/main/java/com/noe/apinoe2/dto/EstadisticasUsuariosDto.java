@@ -0,0 +1,36 @@
+package com.noe.apinoe2.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * DTO con los contadores de usuarios por estado
+ */
+@Getter
+@Setter
+public class EstadisticasUsuariosDto {
+
+    private long activos;
+    private long inactivos;
+    private long total;
+
+    /**
+     * Momento de la última comprobación de los contadores contra la base de datos
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime ultimaReconciliacion;
+
+    // Constructor por defecto
+    public EstadisticasUsuariosDto() {}
+
+    public EstadisticasUsuariosDto(long activos, long inactivos, LocalDateTime ultimaReconciliacion) {
+        this.activos = activos;
+        this.inactivos = inactivos;
+        this.total = activos + inactivos;
+        this.ultimaReconciliacion = ultimaReconciliacion;
+    }
+}
@@ -0,0 +1,53 @@
+package com.noe.apinoe2.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.Getter;
+
+/**
+ * Página de la sincronización incremental: altas y modificaciones (items) e ids borrados
+ * (deleted) entre el watermark del cliente y el nuevo watermark.
+ * Se piden páginas con nextCursor mientras hasMore sea true; después el cliente guarda el
+ * watermark y lo envía como "desde" en la siguiente sincronización. Un mismo usuario puede
+ * llegar más de una vez: hay que aplicar los cambios por id (upsert) y luego los borrados.
+ * Con fullResync el watermark es demasiado antiguo: hay que sincronizar sin "desde".
+ * @param <T> Tipo de los elementos
+ */
+@Getter
+public class SyncPage<T> {
+
+    private final List<T> items;
+    private final List<Integer> deleted;
+    private final String nextCursor;
+    private final boolean hasMore;
+    private final String watermark;
+    private final boolean fullResync;
+
+    public SyncPage(List<T> items, List<Integer> deleted, String nextCursor, String watermark) {
+        this(items, deleted, nextCursor, watermark, false);
+    }
+
+    private SyncPage(List<T> items, List<Integer> deleted, String nextCursor, String watermark, boolean fullResync) {
+        this.items = items;
+        this.deleted = deleted;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+        this.watermark = watermark;
+        this.fullResync = fullResync;
+    }
+
+    public static <T> SyncPage<T> fullResync() {
+        return new SyncPage<>(List.of(), List.of(), null, null, true);
+    }
+
+    /**
+     * Convierte los elementos conservando cursor y watermark (por ejemplo, entidad a DTO)
+     */
+    public <R> SyncPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream()
+                .<R>map(mapper)
+                .toList();
+        return new SyncPage<>(mapped, deleted, nextCursor, watermark, fullResync);
+    }
+}
@@ -6,6 +6,8 @@ import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
 
+import org.springframework.data.annotation.PersistenceCreator;
+
 /**
  * DTO para transferencia de datos de Usuario
  * No incluye: id, fechaCreacion, fechaActualizacion, activo
@@ -39,7 +41,8 @@ public class UsuarioDto {
         this.email = email;
     }
     
-    // Constructor completo
+    // Constructor completo (también el que usan las proyecciones del repositorio)
+    @PersistenceCreator
     public UsuarioDto(String nombre, String email, String googleId, String imagenUrl) {
         this.nombre = nombre;
         this.email = email;
@@ -0,0 +1,26 @@
+package com.noe.apinoe2.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Usuario en la sincronización incremental: a diferencia de UsuarioDto incluye el id
+ * (para fusionar en el cliente), el estado y la fecha de la última modificación
+ */
+@Getter
+@Setter
+public class UsuarioSyncDto {
+
+    private Integer id;
+    private String nombre;
+    private String email;
+    private String googleId;
+    private String imagenUrl;
+    private Boolean activo;
+    private LocalDateTime fechaActualizacion;
+
+    // Constructor por defecto
+    public UsuarioSyncDto() {}
+}
@@ -1,6 +1,7 @@
 package com.noe.apinoe2.mapper;
 
 import com.noe.apinoe2.dto.UsuarioDto;
+import com.noe.apinoe2.dto.UsuarioSyncDto;
 import com.noe.apinoe2.model.Usuario;
 import org.springframework.stereotype.Component;
 
@@ -28,6 +29,25 @@ public class UsuarioMapper implements BaseMapper<Usuario, UsuarioDto> {
         return dto;
     }
 
+    /**
+     * Representación para la sincronización incremental (con id, estado y fecha de modificación)
+     */
+    public UsuarioSyncDto toSyncDto(Usuario usuario) {
+        if (usuario == null) {
+            return null;
+        }
+        
+        UsuarioSyncDto dto = new UsuarioSyncDto();
+        dto.setId(usuario.getId());
+        dto.setNombre(usuario.getNombre());
+        dto.setEmail(usuario.getEmail());
+        dto.setGoogleId(usuario.getGoogleId());
+        dto.setImagenUrl(usuario.getImagenUrl());
+        dto.setActivo(usuario.getActivo());
+        dto.setFechaActualizacion(usuario.getFechaActualizacion());
+        return dto;
+    }
+
     @Override
     public Usuario toEntity(UsuarioDto dto) {
         if (dto == null) {
@@ -7,23 +7,48 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
 @Entity
+@DynamicUpdate
 @Getter
 @Setter
-@Table(name = "usuarios")
+@Table(name = "usuarios", indexes = {
+    // Índices para la paginación keyset (clave de ordenación + id)
+    @Index(name = "idx_usuarios_activo_id", columnList = "activo, id"),
+    @Index(name = "idx_usuarios_activo_fecha_creacion", columnList = "activo, fecha_creacion, id"),
+    // Versión agregada de la colección (MAX(fecha_actualizacion)) para los ETag de listas
+    // y recorrido keyset de la sincronización incremental
+    @Index(name = "idx_usuarios_fecha_actualizacion", columnList = "fecha_actualizacion, id"),
+    // Búsqueda por Google ID en el login (y bloqueo de rango del MERGE de alta). En SQL Server
+    // En SQL Server GoogleIdIndexInitializer lo sustituye por un índice único filtrado (JPA no puede
+    // declarar el filtro y sin él solo se admitiría un usuario sin Google ID); en otros motores no es único
+    @Index(name = "idx_usuarios_google_id", columnList = "google_id")
+})
 public class Usuario {
     
+    /**
+     * Id por secuencia con optimizador pooled: Hibernate reserva bloques de 50 ids y puede
+     * agrupar los INSERT en lotes JDBC (con IDENTITY el batching de inserciones se desactiva).
+     * En una base de datos existente con columna IDENTITY hay que migrar la columna y crear
+     * la secuencia con START WITH mayor que el id máximo e INCREMENT BY 50.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuarios_seq")
+    @SequenceGenerator(name = "usuarios_seq", sequenceName = "usuarios_seq", allocationSize = 50)
     private Integer id;
     
     @NotBlank(message = "El nombre es obligatorio")
@@ -54,6 +79,15 @@ public class Usuario {
     @Column(name = "activo", nullable = false)
     private Boolean activo;
     
+    /**
+     * Versión para concurrencia optimista: cada UPDATE comprueba y avanza la versión, sin
+     * bloquear filas. Al añadir la columna a una tabla existente las filas toman el valor 0
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     // Constructor por defecto
     public Usuario() {
         this.fechaCreacion = LocalDateTime.now();
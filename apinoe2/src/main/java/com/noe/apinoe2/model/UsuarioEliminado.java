@@ -0,0 +1,36 @@
+package com.noe.apinoe2.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Marca de borrado (tombstone) de un usuario eliminado físicamente, para que la
+ * sincronización incremental pueda informar de los borrados. Las filas las escribe
+ * la propia sentencia DELETE (OUTPUT ... INTO) y se purgan pasada la retención.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "usuarios_eliminados", indexes = {
+    // Recorrido keyset de la sincronización por (fecha_eliminacion, id)
+    @Index(name = "idx_usuarios_eliminados_fecha", columnList = "fecha_eliminacion, id")
+})
+public class UsuarioEliminado {
+
+    /**
+     * Id del usuario borrado (los ids salen de una secuencia y no se reutilizan)
+     */
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "fecha_eliminacion", nullable = false)
+    private LocalDateTime fechaEliminacion;
+}
@@ -0,0 +1,33 @@
+package com.noe.apinoe2.repository;
+
+import com.noe.apinoe2.model.UsuarioEliminado;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UsuarioEliminadoRepository extends JpaRepository<UsuarioEliminado, Integer> {
+
+    /**
+     * Siguiente página de borrados posteriores a la clave (fechaEliminacion, id) y hasta la fecha indicada
+     */
+    @Query("SELECT e FROM UsuarioEliminado e WHERE e.fechaEliminacion <= :hasta " +
+           "AND (e.fechaEliminacion > :fecha OR (e.fechaEliminacion = :fecha AND e.id > :id)) " +
+           "ORDER BY e.fechaEliminacion, e.id")
+    List<UsuarioEliminado> findDespuesDe(@Param("fecha") LocalDateTime fecha, @Param("id") Integer id,
+                                         @Param("hasta") LocalDateTime hasta, Limit limit);
+
+    /**
+     * Borra las marcas anteriores a la fecha (fuera de la retención de la sincronización)
+     */
+    @Modifying
+    @Query("DELETE FROM UsuarioEliminado e WHERE e.fechaEliminacion < :antesDe")
+    int purgar(@Param("antesDe") LocalDateTime antesDe);
+}
@@ -1,13 +1,23 @@
 package com.noe.apinoe2.repository;
 
 import com.noe.apinoe2.model.Usuario;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Integer> {
@@ -42,6 +52,16 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Integer> {
      */
     List<Usuario> findByEmailContainingIgnoreCase(String email);
     
+    /**
+     * Busca usuarios por un conjunto de emails (validación de unicidad en operaciones masivas)
+     */
+    List<Usuario> findByEmailIn(Collection<String> emails);
+    
+    /**
+     * Busca usuarios por un conjunto de Google IDs (validación de unicidad en operaciones masivas)
+     */
+    List<Usuario> findByGoogleIdIn(Collection<String> googleIds);
+    
     /**
      * Verifica si existe usuario con el email dado
      */
@@ -62,6 +82,112 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Integer> {
      */
     long countByActivoFalse();
     
+    /**
+     * Cuenta usuarios agrupados por estado en una sola consulta: filas [activo, total]
+     */
+    @Query("SELECT u.activo, COUNT(u) FROM Usuario u GROUP BY u.activo")
+    List<Object[]> contarPorEstado();
+    
+    /**
+     * Última actualización y último borrado: filas [maxFechaActualizacion, maxFechaEliminacion]
+     * Cada MAX es una búsqueda en su índice (idx_usuarios_fecha_actualizacion e
+     * idx_usuarios_eliminados_fecha), no un recorrido de la tabla
+     */
+    @Query("SELECT MAX(u.fechaActualizacion), (SELECT MAX(e.fechaEliminacion) FROM UsuarioEliminado e) FROM Usuario u")
+    List<Object[]> findVersionColeccion();
+    
+    // =============== ACTIVACIÓN (UPDATE DIRECTO) ===============
+    // Cambian el estado en una sola sentencia sin cargar entidades; solo cuentan las filas
+    // que realmente cambian de estado
+
+    @Modifying
+    @Query("UPDATE Usuario u SET u.activo = :activo, u.fechaActualizacion = :fecha, u.version = u.version + 1 " +
+           "WHERE u.id = :id AND u.activo <> :activo")
+    int actualizarActivo(@Param("id") Integer id, @Param("activo") boolean activo,
+                         @Param("fecha") LocalDateTime fecha);
+
+    @Modifying
+    @Query("UPDATE Usuario u SET u.activo = :activo, u.fechaActualizacion = :fecha, u.version = u.version + 1 " +
+           "WHERE u.id IN :ids AND u.activo <> :activo")
+    int actualizarActivoPorIds(@Param("ids") Collection<Integer> ids, @Param("activo") boolean activo,
+                               @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Cambia el estado de los usuarios no actualizados desde la fecha indicada
+     */
+    @Modifying
+    @Query("UPDATE Usuario u SET u.activo = :activo, u.fechaActualizacion = :fecha, u.version = u.version + 1 " +
+           "WHERE u.fechaActualizacion < :antesDe AND u.activo <> :activo")
+    int actualizarActivoSinActualizarDesde(@Param("antesDe") LocalDateTime antesDe, @Param("activo") boolean activo,
+                                           @Param("fecha") LocalDateTime fecha);
+
+    // =============== BORRADO (UNA SENTENCIA) ===============
+    // DELETE con OUTPUT (SQL Server): la misma sentencia borra, deja la marca de borrado en
+    // usuarios_eliminados (OUTPUT ... INTO) y devuelve el estado de las filas borradas, para el
+    // 404 y los contadores sin consultas previas
+
+    @Query(value = """
+            DELETE FROM usuarios
+            OUTPUT deleted.id, :fecha INTO usuarios_eliminados (id, fecha_eliminacion)
+            OUTPUT deleted.activo
+            WHERE id = :id
+            """, nativeQuery = true)
+    List<Boolean> eliminarDevolviendoActivo(@Param("id") Integer id, @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Filas [id, activo] de los usuarios borrados
+     */
+    @Query(value = """
+            DELETE FROM usuarios
+            OUTPUT deleted.id, :fecha INTO usuarios_eliminados (id, fecha_eliminacion)
+            OUTPUT deleted.id, deleted.activo
+            WHERE id IN (:ids)
+            """, nativeQuery = true)
+    List<Object[]> eliminarPorIdsDevolviendoActivo(@Param("ids") Collection<Integer> ids,
+                                                   @Param("fecha") LocalDateTime fecha);
+
+    // =============== ALTA EN EL LOGIN (UNA SENTENCIA) ===============
+
+    /**
+     * Alta o actualización atómica del usuario que inicia sesión con Google
+     * Busca por Google ID y, si no hay, por email (solo si esa fila no tiene otro Google ID).
+     * HOLDLOCK mantiene los bloqueos de rango hasta el final: dos logins simultáneos de la
+     * misma cuenta se serializan y el segundo actualiza la fila que insertó el primero.
+     * Sin filas devueltas, el email pertenece a otra cuenta de Google.
+     * Filas [accion, id, nombre, email, google_id, imagen_url, activo, version, fecha_creacion, fecha_actualizacion]
+     */
+    @Query(value = """
+            MERGE usuarios WITH (HOLDLOCK) AS t
+            USING (SELECT :googleId AS google_id, :email AS email, :nombre AS nombre, :imagenUrl AS imagen_url,
+                          COALESCE(
+                              (SELECT TOP (1) id FROM usuarios WITH (UPDLOCK, HOLDLOCK) WHERE google_id = :googleId ORDER BY id),
+                              (SELECT id FROM usuarios WITH (UPDLOCK, HOLDLOCK) WHERE email = :email)) AS id) AS s
+            ON t.id = s.id
+            WHEN MATCHED AND (t.google_id IS NULL OR t.google_id = s.google_id) THEN
+                UPDATE SET google_id = s.google_id, nombre = s.nombre, imagen_url = s.imagen_url,
+                           fecha_actualizacion = :ahora, version = t.version + 1
+            WHEN NOT MATCHED THEN
+                INSERT (id, nombre, email, google_id, imagen_url, fecha_creacion, fecha_actualizacion, activo, version)
+                VALUES (:nuevoId, s.nombre, s.email, s.google_id, s.imagen_url, :ahora, :ahora, 1, 0)
+            OUTPUT $action, inserted.id, inserted.nombre, inserted.email, inserted.google_id, inserted.imagen_url,
+                   inserted.activo, inserted.version, inserted.fecha_creacion, inserted.fecha_actualizacion;
+            """, nativeQuery = true)
+    List<Object[]> upsertPorGoogleId(@Param("googleId") String googleId, @Param("email") String email,
+                                     @Param("nombre") String nombre, @Param("imagenUrl") String imagenUrl,
+                                     @Param("nuevoId") Integer nuevoId, @Param("ahora") LocalDateTime ahora);
+
+    // =============== PROYECCIONES ===============
+    // Seleccionan solo las columnas del tipo pedido (DTO, record o interfaz): sin entidades
+    // gestionadas ni instantáneas en el contexto de persistencia
+
+    // Las listas van ordenadas y acotadas: las primeras filas de la paginación por cursor
+
+    <T> List<T> findProjectedByOrderById(Limit limit, Class<T> tipo);
+
+    <T> List<T> findProjectedByActivoOrderById(boolean activo, Limit limit, Class<T> tipo);
+
+    <T> List<T> findProjectedByActivoOrderByFechaCreacionDescIdDesc(boolean activo, Limit limit, Class<T> tipo);
+
     /**
      * Busca usuarios activos ordenados por fecha de creación descendente
      */
@@ -73,4 +199,90 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Integer> {
      */
     @Query("SELECT u FROM Usuario u WHERE u.nombre LIKE %:nombre% AND u.activo = :activo")
     List<Usuario> findByNombreAndActivo(@Param("nombre") String nombre, @Param("activo") boolean activo);
+    
+    /**
+     * Busca usuarios por nombre y activos, limitando el número de resultados
+     */
+    @Query("SELECT u FROM Usuario u WHERE u.nombre LIKE %:nombre% AND u.activo = :activo")
+    List<Usuario> findByNombreAndActivo(@Param("nombre") String nombre, @Param("activo") boolean activo, Limit limit);
+    
+    /**
+     * Usuarios de un conjunto de ids con el estado indicado (candidatos del índice de búsqueda)
+     */
+    List<Usuario> findByIdInAndActivo(Collection<Integer> ids, Boolean activo);
+    
+    /**
+     * Busca usuarios por email (contiene, ignorando mayúsculas), limitando el número de resultados
+     */
+    List<Usuario> findByEmailContainingIgnoreCase(String email, Limit limit);
+    
+    // =============== PAGINACIÓN KEYSET ===============
+    
+    /**
+     * Siguiente página ordenada por id (el límite debe ser size + 1)
+     */
+    List<Usuario> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+    
+    /**
+     * Siguiente página de usuarios por estado, ordenada por id
+     */
+    List<Usuario> findByActivoAndIdGreaterThanOrderByIdAsc(boolean activo, Integer id, Limit limit);
+    
+    /**
+     * Primera página de usuarios activos más recientes
+     */
+    @Query("SELECT u FROM Usuario u WHERE u.activo = true ORDER BY u.fechaCreacion DESC, u.id DESC")
+    List<Usuario> findActivosRecientes(Limit limit);
+    
+    /**
+     * Siguiente página de usuarios activos más recientes a partir de la clave (fechaCreacion, id)
+     */
+    @Query("SELECT u FROM Usuario u WHERE u.activo = true " +
+           "AND (u.fechaCreacion < :fecha OR (u.fechaCreacion = :fecha AND u.id < :id)) " +
+           "ORDER BY u.fechaCreacion DESC, u.id DESC")
+    List<Usuario> findActivosRecientesAntesDe(@Param("fecha") LocalDateTime fecha, @Param("id") Integer id, Limit limit);
+    
+    /**
+     * Siguiente página de usuarios modificados después de la clave (fechaActualizacion, id)
+     * y hasta la fecha indicada (índice idx_usuarios_fecha_actualizacion)
+     */
+    @Query("SELECT u FROM Usuario u WHERE u.fechaActualizacion <= :hasta " +
+           "AND (u.fechaActualizacion > :fecha OR (u.fechaActualizacion = :fecha AND u.id > :id)) " +
+           "ORDER BY u.fechaActualizacion, u.id")
+    List<Usuario> findModificadosDespuesDe(@Param("fecha") LocalDateTime fecha, @Param("id") Integer id,
+                                           @Param("hasta") LocalDateTime hasta, Limit limit);
+    
+    /**
+     * Siguiente página de la búsqueda por nombre y estado, ordenada por id
+     */
+    @Query("SELECT u FROM Usuario u WHERE u.nombre LIKE %:nombre% AND u.activo = :activo AND u.id > :id ORDER BY u.id")
+    List<Usuario> findByNombreAndActivoDespuesDe(@Param("nombre") String nombre, @Param("activo") boolean activo,
+                                                 @Param("id") Integer id, Limit limit);
+    
+    // =============== EXPORTACIÓN EN STREAMING ===============
+    
+    /**
+     * Recorre todos los usuarios ordenados por id sin materializar la lista completa
+     * Debe consumirse dentro de una transacción y cerrarse al terminar
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM Usuario u ORDER BY u.id")
+    Stream<Usuario> streamAll();
+    
+    /**
+     * Recorre solo los campos de búsqueda: filas [id, nombre, email]
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+    @Query("SELECT u.id, u.nombre, u.email FROM Usuario u")
+    Stream<Object[]> streamClavesBusqueda();
+
+    /**
+     * Recorre solo las claves únicas: filas [email, googleId]
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+    @Query("SELECT u.email, u.googleId FROM Usuario u")
+    Stream<Object[]> streamClavesUnicas();
 }
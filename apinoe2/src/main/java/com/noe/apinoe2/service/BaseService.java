@@ -1,7 +1,13 @@
 package com.noe.apinoe2.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+
+import com.noe.apinoe2.dto.BulkItemResult;
+import com.noe.apinoe2.dto.BulkUpdateItem;
+import com.noe.apinoe2.dto.CursorPage;
 
 /**
  * Interface base para servicios que proporciona operaciones CRUD básicas
@@ -14,11 +20,76 @@ public interface BaseService<E, ID> {
     
     Optional<E> findById(ID id);
     
+    /**
+     * Lecturas proyectadas: devuelven directamente el tipo pedido (DTO, record o interfaz)
+     * seleccionando solo sus columnas, sin cargar entidades en el contexto de persistencia.
+     * Las listas devuelven como mucho limite elementos, ordenados por id
+     */
+    <P> List<P> findAll(Class<P> tipo, int limite);
+    
+    /**
+     * Página de entidades ordenada por id mediante paginación keyset
+     * @param cursor Cursor devuelto por la página anterior (null para la primera)
+     * @param size Número máximo de elementos de la página
+     */
+    CursorPage<E> findPage(String cursor, int size);
+    
     E save(E entity);
     
     E update(ID id, E entity);
     
+    /**
+     * Carga la entidad, le aplica los cambios y la guarda en una sola transacción
+     * La versión (@Version) rechaza el commit si otra petición la modificó entretanto
+     * @return La entidad modificada o vacío si no existe
+     */
+    Optional<E> patch(ID id, Consumer<E> changes);
+    
+    /**
+     * Inserta varias entidades en lotes JDBC dentro de una sola transacción
+     * Los elementos que no superan las validaciones se informan sin abortar el resto
+     * @return Un resultado por elemento, en el mismo orden que la entrada
+     */
+    List<BulkItemResult<E>> saveAll(List<E> entities);
+    
+    /**
+     * Actualiza varias entidades en lotes JDBC dentro de una sola transacción
+     * @return Un resultado por elemento, en el mismo orden que la entrada
+     */
+    List<BulkItemResult<E>> updateAll(List<BulkUpdateItem<ID, E>> items);
+    
+    /**
+     * Elimina la entidad en una sola sentencia, o la desactiva si el servicio trabaja con
+     * borrado lógico (ver isSoftDelete); lanza RuntimeException si no existe
+     */
     void deleteById(ID id);
     
+    /**
+     * Eliminación masiva por ids con sentencias por bloques en una transacción
+     * @return Número de entidades eliminadas (o desactivadas con borrado lógico)
+     */
+    int deleteAllById(Collection<ID> ids);
+    
+    /**
+     * Indica si las eliminaciones son lógicas (la entidad se desactiva en lugar de borrarse)
+     */
+    default boolean isSoftDelete() {
+        return false;
+    }
+    
     boolean existsById(ID id);
+    
+    /**
+     * Versión agregada de la colección: cambia con cualquier alta, baja o modificación
+     * Se usa para generar ETags de listas sin cargarlas; null si la entidad no la soporta
+     */
+    String getCollectionVersion();
+    
+    /**
+     * Contador de escrituras confirmadas; las respuestas cacheadas con otra versión se descartan
+     * -1 si el servicio no lo mantiene (no se cachean respuestas)
+     */
+    default long getCacheVersion() {
+        return -1;
+    }
 }
@@ -1,8 +1,14 @@
 package com.noe.apinoe2.service;
 
+import com.noe.apinoe2.dto.CursorPage;
+import com.noe.apinoe2.dto.SyncPage;
+import com.noe.apinoe2.dto.EstadisticasUsuariosDto;
 import com.noe.apinoe2.model.Usuario;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Interface de servicio para Usuario
@@ -28,6 +34,56 @@ public interface UsuarioService extends BaseService<Usuario, Integer> {
     
     List<Usuario> findByNombreAndActivo(String nombre, boolean activo);
     
+    // =============== LECTURAS PROYECTADAS ===============
+    
+    <P> List<P> findActivos(Class<P> tipo, int limite);
+    
+    <P> List<P> findInactivos(Class<P> tipo, int limite);
+    
+    <P> List<P> findActivosRecientes(Class<P> tipo, int limite);
+    
+    // =============== BÚSQUEDA DE TEXTO (ÍNDICE EN MEMORIA) ===============
+    
+    /**
+     * Usuarios cuyo nombre contiene el texto, ordenados por relevancia y limitados
+     */
+    List<Usuario> buscarPorNombre(String nombre, boolean activo, int limite);
+    
+    /**
+     * Usuarios cuyo email contiene el texto, ordenados por relevancia y limitados
+     */
+    List<Usuario> buscarPorEmail(String email, int limite);
+    
+    // =============== BÚSQUEDAS PAGINADAS (KEYSET) ===============
+    
+    CursorPage<Usuario> findActivosPage(String cursor, int size);
+    
+    CursorPage<Usuario> findInactivosPage(String cursor, int size);
+    
+    /**
+     * Usuarios activos más recientes, paginados por (fechaCreacion, id) descendente
+     */
+    CursorPage<Usuario> findActivosRecientesPage(String cursor, int size);
+    
+    CursorPage<Usuario> findByNombreAndActivoPage(String nombre, boolean activo, String cursor, int size);
+    
+    // =============== SINCRONIZACIÓN INCREMENTAL ===============
+    
+    /**
+     * Usuarios modificados y borrados desde el watermark "desde" (null: sincronización completa),
+     * paginados por (fechaActualizacion, id) y después por (fechaEliminacion, id)
+     * @throws IllegalArgumentException si el watermark o el cursor no son válidos
+     */
+    SyncPage<Usuario> sincronizar(String desde, String cursor, int size);
+    
+    // =============== EXPORTACIÓN ===============
+    
+    /**
+     * Recorre todos los usuarios en streaming entregándolos uno a uno al consumidor
+     * La memoria usada no depende del número de filas
+     */
+    void exportar(Consumer<Usuario> consumidor);
+    
     // =============== VALIDACIONES ===============
     
     boolean existsByEmail(String email);
@@ -36,16 +92,45 @@ public interface UsuarioService extends BaseService<Usuario, Integer> {
     
     // =============== OPERACIONES ESPECÍFICAS ===============
     
+    /**
+     * Resultado del alta en el login: el usuario resultante y si se ha creado
+     */
+    record Provision(Usuario usuario, boolean creado) {}
+    
+    /**
+     * Crea o actualiza (nombre e imagen) en una sola sentencia el usuario que inicia sesión con Google
+     * Se identifica por Google ID y, si no existe, por email
+     * @throws IllegalArgumentException si el email pertenece a otra cuenta de Google
+     */
+    Provision provisionarGoogle(Usuario datos);
+        
     void activar(Integer id);
     
     void desactivar(Integer id);
     
+    /**
+     * Activa o desactiva los usuarios indicados con sentencias UPDATE por bloques
+     * @return Número de usuarios que han cambiado de estado
+     */
+    int cambiarActivo(Collection<Integer> ids, boolean activo);
+    
+    /**
+     * Activa o desactiva en una sola sentencia los usuarios no actualizados desde la fecha
+     * @return Número de usuarios que han cambiado de estado
+     */
+    int cambiarActivoSinActualizarDesde(LocalDateTime fecha, boolean activo);
+    
     // =============== ESTADÍSTICAS ===============
     
     long contarActivos();
     
     long contarInactivos();
     
+    /**
+     * Contadores de activos, inactivos y total en una sola llamada (servidos desde memoria)
+     */
+    EstadisticasUsuariosDto obtenerEstadisticas();
+    
     // =============== MÉTODOS DE VALIDACIÓN DE NEGOCIO ===============
     
     /**
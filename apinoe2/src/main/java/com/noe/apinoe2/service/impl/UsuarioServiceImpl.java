@@ -1,23 +1,132 @@
 package com.noe.apinoe2.service.impl;
 
+import com.noe.apinoe2.dto.BulkItemResult;
+import com.noe.apinoe2.dto.BulkUpdateItem;
+import com.noe.apinoe2.dto.CursorPage;
+import com.noe.apinoe2.dto.EstadisticasUsuariosDto;
+import com.noe.apinoe2.dto.SyncPage;
 import com.noe.apinoe2.model.Usuario;
+import com.noe.apinoe2.model.UsuarioEliminado;
+import com.noe.apinoe2.repository.UsuarioEliminadoRepository;
 import com.noe.apinoe2.repository.UsuarioRepository;
 import com.noe.apinoe2.service.UsuarioService;
+import com.noe.apinoe2.service.support.AfterCommit;
+import com.noe.apinoe2.service.support.SingleFlight;
+import com.noe.apinoe2.service.support.UsuarioBusquedaIndex;
+import com.noe.apinoe2.service.support.UsuarioCache;
+import com.noe.apinoe2.service.support.UsuarioClavesFiltro;
+import com.noe.apinoe2.service.support.UsuarioEstadisticas;
+import com.noe.apinoe2.service.support.UsuarioEventos;
+import com.noe.apinoe2.util.KeysetCursor;
+import com.noe.apinoe2.util.TrigramIndex;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class UsuarioServiceImpl implements UsuarioService {
 
+    /**
+     * Cada cuántas filas exportadas se vacía el contexto de persistencia
+     */
+    private static final int EXPORTACION_CLEAR_CADA = 1000;
+
+    /**
+     * Máximo de parámetros por cláusula IN (SQL Server admite 2100 por sentencia)
+     */
+    private static final int MAX_PARAMETROS_IN = 1000;
+
+    /**
+     * Factor con el que crecen los candidatos pedidos al índice de búsqueda en cada ronda
+     * mientras el filtro por estado deje menos resultados que el límite
+     */
+    private static final int BUSQUEDA_SOBREMUESTREO = 4;
+
+    /**
+     * Inicio de la sincronización completa (anterior a cualquier fecha de modificación)
+     */
+    private static final LocalDateTime SYNC_ORIGEN = LocalDateTime.of(2000, 1, 1, 0, 0);
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private UsuarioCache usuarioCache;
+
+    @Autowired
+    private UsuarioEstadisticas usuarioEstadisticas;
+
+    @Autowired
+    private UsuarioBusquedaIndex usuarioBusquedaIndex;
+
+    @Autowired
+    private UsuarioClavesFiltro usuarioClavesFiltro;
+
+    @Autowired
+    private UsuarioEventos usuarioEventos;
+
+    @Autowired
+    private UsuarioEliminadoRepository usuarioEliminadoRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Borrado lógico: las eliminaciones desactivan al usuario en lugar de borrarlo
+     */
+    @Value("${app.usuarios.soft-delete:false}")
+    private boolean borradoLogico;
+
+    @Value("${app.bulk.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * La sincronización solo entrega cambios anteriores a ahora - margen: una transacción aún
+     * sin confirmar (o no replicada) con fecha anterior no se pierde al avanzar el watermark
+     */
+    @Value("${app.usuarios.sync.margen:5s}")
+    private Duration margenSincronizacion;
+
+    @Value("${app.usuarios.sync.retencion-eliminados:30d}")
+    private Duration retencionEliminados;
+
+    /**
+     * Versión de datos para la caché de respuestas: avanza tras cada escritura confirmada
+     */
+    private final AtomicLong versionDatos = new AtomicLong();
+
     // =============== MÉTODOS DE BaseService ===============
 
     @Override
@@ -26,16 +135,43 @@ public class UsuarioServiceImpl implements UsuarioService {
         return usuarioRepository.findAll();
     }
 
+    /**
+     * Lectura a través de la caché: SUPPORTS evita abrir transacción (y tomar conexión)
+     * cuando la entrada ya está en memoria
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @SingleFlight
     public Optional<Usuario> findById(Integer id) {
-        return usuarioRepository.findById(id);
+        return usuarioCache.porId(id, usuarioRepository::findById);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <P> List<P> findAll(Class<P> tipo, int limite) {
+        return usuarioRepository.findProjectedByOrderById(Limit.of(limite), tipo);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Usuario> findPage(String cursor, int size) {
+        List<Usuario> filas = usuarioRepository.findByIdGreaterThanOrderByIdAsc(idDesdeCursor(cursor), Limit.of(size + 1));
+        return CursorPage.of(filas, size, u -> KeysetCursor.encode(u.getId()));
     }
 
     @Override
     public Usuario save(Usuario usuario) {
         // Las fechas se setean automáticamente con @PrePersist
-        return usuarioRepository.save(usuario);
+        boolean nuevo = usuario.getId() == null;
+        usuarioClavesFiltro.agregar(usuario.getEmail(), usuario.getGoogleId());
+        Usuario guardado = usuarioRepository.save(usuario);
+        if (nuevo) {
+            usuarioEstadisticas.usuarioCreado(guardado.getActivo());
+        }
+        AfterCommit.run(() -> usuarioBusquedaIndex.indexar(guardado));
+        AfterCommit.run(() -> usuarioCache.invalidar(guardado.getId()));
+        registrarCambio(nuevo ? UsuarioEventos.CREADO : UsuarioEventos.ACTUALIZADO, List.of(guardado.getId()));
+        return guardado;
     }
 
     @Override
@@ -43,22 +179,189 @@ public class UsuarioServiceImpl implements UsuarioService {
         Usuario usuarioExistente = usuarioRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + id));
 
-        // Actualizar campos (sin tocar id, fechaCreacion)
-        usuarioExistente.setNombre(usuario.getNombre());
-        usuarioExistente.setEmail(usuario.getEmail());
-        usuarioExistente.setGoogleId(usuario.getGoogleId());
-        usuarioExistente.setImagenUrl(usuario.getImagenUrl());
-        // La fechaActualizacion se actualiza automáticamente con @PreUpdate
+        copiarCampos(usuario, usuarioExistente);
 
+        usuarioClavesFiltro.agregar(usuarioExistente.getEmail(), usuarioExistente.getGoogleId());
+        AfterCommit.run(() -> usuarioBusquedaIndex.indexar(usuarioExistente));
+        AfterCommit.run(() -> usuarioCache.invalidar(id));
+        registrarCambio(UsuarioEventos.ACTUALIZADO, List.of(id));
         return usuarioRepository.save(usuarioExistente);
     }
 
+    @Override
+    public Optional<Usuario> patch(Integer id, Consumer<Usuario> cambios) {
+        Optional<Usuario> usuario = usuarioRepository.findById(id);
+        usuario.ifPresent(u -> {
+            cambios.accept(u);
+            usuarioClavesFiltro.agregar(u.getEmail(), u.getGoogleId());
+            AfterCommit.run(() -> usuarioBusquedaIndex.indexar(u));
+            AfterCommit.run(() -> usuarioCache.invalidar(id));
+            registrarCambio(UsuarioEventos.ACTUALIZADO, List.of(id));
+        });
+        return usuario;
+    }
+
+    @Override
+    public List<BulkItemResult<Usuario>> saveAll(List<Usuario> usuarios) {
+        // Una consulta (por bloque de IN) para las claves únicas de todo el conjunto
+        Map<String, Integer> emailsOcupados = cargarClavesOcupadas(
+                usuarios.stream().map(Usuario::getEmail).toList(),
+                usuarioClavesFiltro::puedeExistirEmail, usuarioRepository::findByEmailIn, Usuario::getEmail);
+        Map<String, Integer> googleIdsOcupados = cargarClavesOcupadas(
+                usuarios.stream().map(Usuario::getGoogleId).toList(),
+                usuarioClavesFiltro::puedeExistirGoogleId, usuarioRepository::findByGoogleIdIn, Usuario::getGoogleId);
+
+        List<BulkItemResult<Usuario>> resultados = new ArrayList<>(usuarios.size());
+        List<Integer> creados = new ArrayList<>();
+        int pendientes = 0;
+        for (int i = 0; i < usuarios.size(); i++) {
+            Usuario usuario = usuarios.get(i);
+            String conflicto = buscarConflicto(usuario, null, emailsOcupados, googleIdsOcupados);
+            if (conflicto != null) {
+                resultados.add(BulkItemResult.error(i, conflicto));
+                continue;
+            }
+
+            // Con ids de secuencia Hibernate agrupa los INSERT en lotes JDBC
+            usuarioClavesFiltro.agregar(usuario.getEmail(), usuario.getGoogleId());
+            entityManager.persist(usuario);
+            usuarioEstadisticas.usuarioCreado(usuario.getActivo());
+            AfterCommit.run(() -> usuarioBusquedaIndex.indexar(usuario));
+            reservarClaves(usuario, emailsOcupados, googleIdsOcupados);
+            creados.add(usuario.getId());
+            resultados.add(BulkItemResult.ok(i, "Usuario creado", usuario));
+
+            if (++pendientes % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        if (pendientes > 0) {
+            registrarCambio(UsuarioEventos.CREADO, creados);
+        }
+        return resultados;
+    }
+
+    @Override
+    public List<BulkItemResult<Usuario>> updateAll(List<BulkUpdateItem<Integer, Usuario>> items) {
+        Map<String, Integer> emailsOcupados = cargarClavesOcupadas(
+                items.stream().map(item -> item.getData().getEmail()).toList(),
+                usuarioClavesFiltro::puedeExistirEmail, usuarioRepository::findByEmailIn, Usuario::getEmail);
+        Map<String, Integer> googleIdsOcupados = cargarClavesOcupadas(
+                items.stream().map(item -> item.getData().getGoogleId()).toList(),
+                usuarioClavesFiltro::puedeExistirGoogleId, usuarioRepository::findByGoogleIdIn, Usuario::getGoogleId);
+
+        List<BulkItemResult<Usuario>> resultados = new ArrayList<>(items.size());
+        // Las claves que deja libre un usuario solo pueden reutilizarse tras enviar su UPDATE
+        List<Usuario> anteriores = new ArrayList<>();
+        List<Integer> actualizados = new ArrayList<>();
+        for (int inicio = 0; inicio < items.size(); inicio += batchSize) {
+            List<BulkUpdateItem<Integer, Usuario>> bloque = items.subList(inicio, Math.min(inicio + batchSize, items.size()));
+
+            // Un SELECT por bloque para cargar los usuarios a modificar
+            List<Integer> ids = bloque.stream()
+                    .map(BulkUpdateItem::getId)
+                    .filter(id -> id != null)
+                    .distinct()
+                    .toList();
+            Map<Integer, Usuario> existentes = new HashMap<>();
+            usuarioRepository.findAllById(ids).forEach(u -> existentes.put(u.getId(), u));
+
+            for (int j = 0; j < bloque.size(); j++) {
+                int indice = inicio + j;
+                BulkUpdateItem<Integer, Usuario> item = bloque.get(j);
+                Usuario existente = item.getId() != null ? existentes.get(item.getId()) : null;
+                if (existente == null) {
+                    resultados.add(BulkItemResult.error(indice, "Usuario no encontrado con id: " + item.getId()));
+                    continue;
+                }
+
+                String conflicto = buscarConflicto(item.getData(), existente.getId(), emailsOcupados, googleIdsOcupados);
+                if (conflicto != null) {
+                    resultados.add(BulkItemResult.error(indice, conflicto));
+                    continue;
+                }
+
+                anteriores.add(copiarClaves(existente));
+                copiarCampos(item.getData(), existente);
+                usuarioClavesFiltro.agregar(existente.getEmail(), existente.getGoogleId());
+                AfterCommit.run(() -> usuarioBusquedaIndex.indexar(existente));
+                actualizados.add(existente.getId());
+                reservarClaves(existente, emailsOcupados, googleIdsOcupados);
+                resultados.add(BulkItemResult.ok(indice, "Usuario actualizado", existente));
+            }
+
+            // Los UPDATE del bloque se envían como un lote JDBC
+            entityManager.flush();
+            entityManager.clear();
+
+            anteriores.forEach(anterior -> liberarClaves(anterior, emailsOcupados, googleIdsOcupados));
+            anteriores.clear();
+        }
+        AfterCommit.run(() -> actualizados.forEach(usuarioCache::invalidar));
+        if (!actualizados.isEmpty()) {
+            registrarCambio(UsuarioEventos.ACTUALIZADO, actualizados);
+        }
+        return resultados;
+    }
+
     @Override
     public void deleteById(Integer id) {
-        if (!usuarioRepository.existsById(id)) {
+        if (borradoLogico) {
+            cambiarActivo(id, false);
+            return;
+        }
+        List<Boolean> eliminados = usuarioRepository.eliminarDevolviendoActivo(id, LocalDateTime.now());
+        if (eliminados.isEmpty()) {
             throw new RuntimeException("Usuario no encontrado con id: " + id);
         }
-        usuarioRepository.deleteById(id);
+        usuarioEstadisticas.usuarioEliminado(eliminados.get(0));
+        AfterCommit.run(() -> usuarioBusquedaIndex.eliminar(id));
+        AfterCommit.run(() -> usuarioCache.invalidar(id));
+        registrarCambio(UsuarioEventos.ELIMINADO, List.of(id));
+    }
+
+    @Override
+    public int deleteAllById(Collection<Integer> ids) {
+        if (borradoLogico) {
+            return cambiarActivo(ids, false);
+        }
+        List<Integer> distintos = ids.stream().filter(Objects::nonNull).distinct().toList();
+        List<Integer> eliminados = new ArrayList<>();
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int i = 0; i < distintos.size(); i += MAX_PARAMETROS_IN) {
+            List<Integer> bloque = distintos.subList(i, Math.min(i + MAX_PARAMETROS_IN, distintos.size()));
+            for (Object[] fila : usuarioRepository.eliminarPorIdsDevolviendoActivo(bloque, ahora)) {
+                usuarioEstadisticas.usuarioEliminado((Boolean) fila[1]);
+                eliminados.add(((Number) fila[0]).intValue());
+            }
+        }
+        AfterCommit.run(() -> eliminados.forEach(usuarioBusquedaIndex::eliminar));
+        AfterCommit.run(() -> distintos.forEach(usuarioCache::invalidar));
+        if (!eliminados.isEmpty()) {
+            registrarCambio(UsuarioEventos.ELIMINADO, eliminados);
+        }
+        return eliminados.size();
+    }
+
+    @Override
+    public long getCacheVersion() {
+        return versionDatos.get();
+    }
+
+    /**
+     * Cuando la transacción confirma, deja obsoletas las respuestas cacheadas y publica el
+     * evento para los suscriptores (ids null: cambio masivo sin detalle)
+     */
+    private void registrarCambio(String evento, List<Integer> ids) {
+        AfterCommit.run(versionDatos::incrementAndGet);
+        usuarioEventos.publicarTrasCommit(evento, ids);
+    }
+
+    @Override
+    public boolean isSoftDelete() {
+        return borradoLogico;
     }
 
     @Override
@@ -67,18 +370,39 @@ public class UsuarioServiceImpl implements UsuarioService {
         return usuarioRepository.existsById(id);
     }
 
+    /**
+     * Total de los contadores en memoria, última fechaActualizacion y último borrado (marcas de
+     * usuarios_eliminados); las dos fechas son búsquedas de MAX en índice, sin contar filas.
+     * Altas y modificaciones cambian la primera fecha y los borrados la segunda; las fechas
+     * van con toda su precisión para que dos escrituras en el mismo milisegundo no compartan ETag
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @SingleFlight
+    public String getCollectionVersion() {
+        Object[] fila = usuarioRepository.findVersionColeccion().get(0);
+        long total = usuarioEstadisticas.getActivos() + usuarioEstadisticas.getInactivos();
+        return total + "-" + versionFecha((LocalDateTime) fila[0]) + "-" + versionFecha((LocalDateTime) fila[1]);
+    }
+
+    private static String versionFecha(LocalDateTime fecha) {
+        return fecha == null ? "0" : Long.toHexString(fecha.toEpochSecond(ZoneOffset.UTC)) + "." + Integer.toHexString(fecha.getNano());
+    }
+
     // =============== BÚSQUEDAS ESPECÍFICAS ===============
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @SingleFlight
     public Optional<Usuario> findByEmail(String email) {
-        return usuarioRepository.findByEmail(email);
+        return usuarioCache.porEmail(email, usuarioRepository::findByEmail);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @SingleFlight
     public Optional<Usuario> findByGoogleId(String googleId) {
-        return usuarioRepository.findByGoogleId(googleId);
+        return usuarioCache.porGoogleId(googleId, usuarioRepository::findByGoogleId);
     }
 
     @Override
@@ -111,58 +435,532 @@ public class UsuarioServiceImpl implements UsuarioService {
         return usuarioRepository.findActivosOrderByFechaCreacionDesc();
     }
 
+    // =============== LECTURAS PROYECTADAS ===============
+
+    @Override
+    @Transactional(readOnly = true)
+    @SingleFlight
+    public <P> List<P> findActivos(Class<P> tipo, int limite) {
+        return usuarioRepository.findProjectedByActivoOrderById(true, Limit.of(limite), tipo);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @SingleFlight
+    public <P> List<P> findInactivos(Class<P> tipo, int limite) {
+        return usuarioRepository.findProjectedByActivoOrderById(false, Limit.of(limite), tipo);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @SingleFlight
+    public <P> List<P> findActivosRecientes(Class<P> tipo, int limite) {
+        return usuarioRepository.findProjectedByActivoOrderByFechaCreacionDescIdDesc(true, Limit.of(limite), tipo);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Usuario> findByNombreAndActivo(String nombre, boolean activo) {
         return usuarioRepository.findByNombreAndActivo(nombre, activo);
     }
 
-    // =============== VALIDACIONES ===============
+    // =============== BÚSQUEDA DE TEXTO (ÍNDICE EN MEMORIA) ===============
 
     @Override
     @Transactional(readOnly = true)
-    public boolean existsByEmail(String email) {
-        return usuarioRepository.existsByEmail(email);
+    public List<Usuario> buscarPorNombre(String nombre, boolean activo, int limite) {
+        validarBusqueda(nombre);
+        if (!usuarioBusquedaIndex.isListo()) {
+            return usuarioRepository.findByNombreAndActivo(nombre, activo, Limit.of(limite));
+        }
+        // El índice no conoce el estado: se piden más candidatos hasta completar el límite o agotarlos.
+        // Cada ronda repite los candidatos anteriores, pero solo se consultan los nuevos
+        List<Usuario> encontrados = new ArrayList<>();
+        Set<Integer> revisados = new HashSet<>();
+        int pedidos = limite * BUSQUEDA_SOBREMUESTREO;
+        while (true) {
+            List<Integer> ids = usuarioBusquedaIndex.buscarPorNombre(nombre, pedidos);
+            List<Integer> nuevos = ids.stream().filter(revisados::add).toList();
+            encontrados.addAll(cargarEnOrden(nuevos, bloque -> usuarioRepository.findByIdInAndActivo(bloque, activo)));
+            if (encontrados.size() >= limite || ids.size() < pedidos) {
+                break;
+            }
+            pedidos = (int) Math.min((long) pedidos * BUSQUEDA_SOBREMUESTREO, Integer.MAX_VALUE);
+        }
+        return encontrados.size() > limite ? encontrados.subList(0, limite) : encontrados;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Usuario> buscarPorEmail(String email, int limite) {
+        validarBusqueda(email);
+        if (!usuarioBusquedaIndex.isListo()) {
+            return usuarioRepository.findByEmailContainingIgnoreCase(email, Limit.of(limite));
+        }
+        return cargarEnOrden(usuarioBusquedaIndex.buscarPorEmail(email, limite));
+    }
+
+    /**
+     * Sin trigramas el índice tendría que recorrer todos los nombres (y la BD, un LIKE sin índice)
+     */
+    private static void validarBusqueda(String texto) {
+        if (texto == null || texto.trim().length() < TrigramIndex.LONGITUD_MINIMA_CONSULTA) {
+            throw new IllegalArgumentException(
+                    "La búsqueda necesita al menos " + TrigramIndex.LONGITUD_MINIMA_CONSULTA + " caracteres");
+        }
+    }
+
+    /**
+     * Carga los usuarios por clave primaria conservando el orden de relevancia del índice
+     */
+    private List<Usuario> cargarEnOrden(List<Integer> ids) {
+        return cargarEnOrden(ids, usuarioRepository::findAllById);
+    }
+
+    /**
+     * Como cargarEnOrden(ids), con la consulta indicada por bloques de IN; los ids que la
+     * consulta no devuelve se omiten
+     */
+    private List<Usuario> cargarEnOrden(List<Integer> ids, Function<List<Integer>, List<Usuario>> consulta) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Usuario> porId = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += MAX_PARAMETROS_IN) {
+            consulta.apply(ids.subList(i, Math.min(i + MAX_PARAMETROS_IN, ids.size())))
+                    .forEach(u -> porId.put(u.getId(), u));
+        }
+        return ids.stream()
+                .map(porId::get)
+                .filter(u -> u != null)
+                .toList();
+    }
+
+    // =============== BÚSQUEDAS PAGINADAS (KEYSET) ===============
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Usuario> findActivosPage(String cursor, int size) {
+        return findByActivoPage(true, cursor, size);
     }
 
     @Override
     @Transactional(readOnly = true)
+    public CursorPage<Usuario> findInactivosPage(String cursor, int size) {
+        return findByActivoPage(false, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Usuario> findActivosRecientesPage(String cursor, int size) {
+        List<Usuario> filas;
+        if (cursor == null || cursor.isEmpty()) {
+            filas = usuarioRepository.findActivosRecientes(Limit.of(size + 1));
+        } else {
+            String[] clave = KeysetCursor.decode(cursor, 2);
+            filas = usuarioRepository.findActivosRecientesAntesDe(
+                    parseFecha(clave[0], cursor), parseId(clave[1], cursor), Limit.of(size + 1));
+        }
+        return CursorPage.of(filas, size, u -> KeysetCursor.encode(u.getFechaCreacion(), u.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Usuario> findByNombreAndActivoPage(String nombre, boolean activo, String cursor, int size) {
+        List<Usuario> filas = usuarioRepository.findByNombreAndActivoDespuesDe(
+                nombre, activo, idDesdeCursor(cursor), Limit.of(size + 1));
+        return CursorPage.of(filas, size, u -> KeysetCursor.encode(u.getId()));
+    }
+
+    private CursorPage<Usuario> findByActivoPage(boolean activo, String cursor, int size) {
+        List<Usuario> filas = usuarioRepository.findByActivoAndIdGreaterThanOrderByIdAsc(
+                activo, idDesdeCursor(cursor), Limit.of(size + 1));
+        return CursorPage.of(filas, size, u -> KeysetCursor.encode(u.getId()));
+    }
+
+    /**
+     * Obtiene el último id entregado a partir del cursor (la primera página empieza desde el mínimo)
+     */
+    private Integer idDesdeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return Integer.MIN_VALUE;
+        }
+        return parseId(KeysetCursor.decode(cursor, 1)[0], cursor);
+    }
+
+    private Integer parseId(String valor, String cursor) {
+        try {
+            return Integer.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+
+    private LocalDateTime parseFecha(String valor, String cursor) {
+        try {
+            return LocalDateTime.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+
+    // =============== SINCRONIZACIÓN INCREMENTAL ===============
+
+    /**
+     * Recorre la ventana (desde, hasta]: primero los usuarios modificados y después las marcas
+     * de borrado, con un único cursor [desde, hasta, fase, fecha, id]. "hasta" se fija en la
+     * primera página y es el nuevo watermark.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SyncPage<Usuario> sincronizar(String desde, String cursor, int size) {
+        LocalDateTime inicio;
+        LocalDateTime hasta;
+        boolean borrados;
+        LocalDateTime fecha;
+        Integer id;
+        if (cursor == null || cursor.isEmpty()) {
+            inicio = desde == null || desde.isEmpty() ? null : parseWatermark(desde);
+            if (inicio != null && inicio.isBefore(LocalDateTime.now().minus(retencionEliminados))) {
+                // Las marcas de borrado de ese periodo ya se han purgado
+                return SyncPage.fullResync();
+            }
+            hasta = LocalDateTime.now().minus(margenSincronizacion).truncatedTo(ChronoUnit.MICROS);
+            borrados = false;
+            fecha = inicio != null ? inicio : SYNC_ORIGEN;
+            id = Integer.MAX_VALUE;
+        } else {
+            String[] clave = KeysetCursor.decode(cursor, 5);
+            inicio = clave[0].isEmpty() ? null : parseFecha(clave[0], cursor);
+            hasta = parseFecha(clave[1], cursor);
+            borrados = "e".equals(clave[2]);
+            fecha = parseFecha(clave[3], cursor);
+            id = parseId(clave[4], cursor);
+        }
+        String watermark = hasta.toString();
+
+        List<Usuario> modificados = List.of();
+        if (!borrados) {
+            modificados = usuarioRepository.findModificadosDespuesDe(fecha, id, hasta, Limit.of(size + 1));
+            if (modificados.size() > size) {
+                modificados = modificados.subList(0, size);
+                Usuario ultimo = modificados.get(size - 1);
+                return new SyncPage<>(modificados, List.of(),
+                        cursorSincronizacion(inicio, hasta, "u", ultimo.getFechaActualizacion(), ultimo.getId()), watermark);
+            }
+            if (inicio == null) {
+                // Sincronización completa: el cliente no tiene nada que borrar
+                return new SyncPage<>(modificados, List.of(), null, watermark);
+            }
+            fecha = inicio;
+            id = Integer.MAX_VALUE;
+        }
+
+        // El resto de la página se completa con marcas de borrado
+        int restantes = size - modificados.size();
+        List<UsuarioEliminado> eliminados = usuarioEliminadoRepository.findDespuesDe(fecha, id, hasta, Limit.of(restantes + 1));
+        String siguiente = null;
+        if (eliminados.size() > restantes) {
+            eliminados = eliminados.subList(0, restantes);
+            UsuarioEliminado ultimo = eliminados.isEmpty() ? null : eliminados.get(restantes - 1);
+            siguiente = ultimo != null
+                    ? cursorSincronizacion(inicio, hasta, "e", ultimo.getFechaEliminacion(), ultimo.getId())
+                    : cursorSincronizacion(inicio, hasta, "e", fecha, id);
+        }
+        return new SyncPage<>(modificados, eliminados.stream().map(UsuarioEliminado::getId).toList(), siguiente, watermark);
+    }
+
+    /**
+     * Marcas de borrado fuera de la retención; un watermark anterior obliga a sincronizar completo
+     */
+    @Scheduled(fixedDelayString = "${app.usuarios.sync.purga:PT6H}",
+               initialDelayString = "${app.usuarios.sync.purga:PT6H}")
+    public void purgarEliminados() {
+        usuarioEliminadoRepository.purgar(LocalDateTime.now().minus(retencionEliminados));
+    }
+
+    private static String cursorSincronizacion(LocalDateTime desde, LocalDateTime hasta, String fase,
+                                               LocalDateTime fecha, Integer id) {
+        return KeysetCursor.encode(desde != null ? desde : "", hasta, fase, fecha, id);
+    }
+
+    private LocalDateTime parseWatermark(String valor) {
+        try {
+            return LocalDateTime.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Watermark inválido: " + valor);
+        }
+    }
+
+    // =============== EXPORTACIÓN ===============
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportar(Consumer<Usuario> consumidor) {
+        try (Stream<Usuario> usuarios = usuarioRepository.streamAll()) {
+            int[] procesados = {0};
+            usuarios.forEach(usuario -> {
+                consumidor.accept(usuario);
+                // Liberar las entidades ya exportadas para mantener la memoria constante
+                if (++procesados[0] % EXPORTACION_CLEAR_CADA == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+
+    // =============== VALIDACIONES ===============
+
+    /**
+     * Un email descartado por el filtro de claves no necesita consulta (ni transacción)
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @SingleFlight
+    public boolean existsByEmail(String email) {
+        return usuarioClavesFiltro.puedeExistirEmail(email) && usuarioRepository.existsByEmail(email);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @SingleFlight
     public boolean existsByGoogleId(String googleId) {
-        return usuarioRepository.existsByGoogleId(googleId);
+        return usuarioClavesFiltro.puedeExistirGoogleId(googleId) && usuarioRepository.existsByGoogleId(googleId);
     }
 
     // =============== OPERACIONES ESPECÍFICAS ===============
 
+    @Override
+    public Provision provisionarGoogle(Usuario datos) {
+        usuarioClavesFiltro.agregar(datos.getEmail(), datos.getGoogleId());
+        List<Object[]> filas = usuarioRepository.upsertPorGoogleId(datos.getGoogleId(), datos.getEmail(),
+                datos.getNombre(), datos.getImagenUrl(), siguienteId(), LocalDateTime.now());
+        if (filas.isEmpty()) {
+            throw new IllegalArgumentException("El email " + datos.getEmail() + " ya está asociado a otra cuenta de Google");
+        }
+
+        Object[] fila = filas.get(0);
+        boolean creado = "INSERT".equals(fila[0]);
+        Usuario usuario = new Usuario();
+        usuario.setId(((Number) fila[1]).intValue());
+        usuario.setNombre((String) fila[2]);
+        usuario.setEmail((String) fila[3]);
+        usuario.setGoogleId((String) fila[4]);
+        usuario.setImagenUrl((String) fila[5]);
+        usuario.setActivo((Boolean) fila[6]);
+        usuario.setVersion(((Number) fila[7]).longValue());
+        usuario.setFechaCreacion(aFecha(fila[8]));
+        usuario.setFechaActualizacion(aFecha(fila[9]));
+
+        if (creado) {
+            usuarioEstadisticas.usuarioCreado(usuario.getActivo());
+        }
+        AfterCommit.run(() -> usuarioBusquedaIndex.indexar(usuario));
+        AfterCommit.run(() -> usuarioCache.invalidar(usuario.getId()));
+        registrarCambio(creado ? UsuarioEventos.CREADO : UsuarioEventos.ACTUALIZADO, List.of(usuario.getId()));
+        return new Provision(usuario, creado);
+    }
+
+    /**
+     * Id para un posible INSERT del MERGE, tomado del mismo generador que usa JPA
+     * (normalmente del bloque ya reservado, sin ir a la secuencia): SQL Server no
+     * admite NEXT VALUE FOR dentro de un MERGE. Si la fila ya existe el id se descarta.
+     */
+    private Integer siguienteId() {
+        SharedSessionContractImplementor sesion = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generador = (IdentifierGenerator) sesion.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Usuario.class).getGenerator();
+        return ((Number) generador.generate(sesion, null)).intValue();
+    }
+
+    private static LocalDateTime aFecha(Object valor) {
+        return valor instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) valor;
+    }
+
     @Override
     public void activar(Integer id) {
-        Usuario usuario = usuarioRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + id));
-        
-        usuario.setActivo(true);
-        usuarioRepository.save(usuario);
+        cambiarActivo(id, true);
     }
 
     @Override
     public void desactivar(Integer id) {
-        Usuario usuario = usuarioRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + id));
-        
-        usuario.setActivo(false);
-        usuarioRepository.save(usuario);
+        cambiarActivo(id, false);
+    }
+
+    @Override
+    public int cambiarActivo(Collection<Integer> ids, boolean activo) {
+        List<Integer> distintos = ids.stream().filter(Objects::nonNull).distinct().toList();
+        LocalDateTime ahora = LocalDateTime.now();
+        int cambiados = 0;
+        for (int i = 0; i < distintos.size(); i += MAX_PARAMETROS_IN) {
+            List<Integer> bloque = distintos.subList(i, Math.min(i + MAX_PARAMETROS_IN, distintos.size()));
+            cambiados += usuarioRepository.actualizarActivoPorIds(bloque, activo, ahora);
+        }
+        usuarioEstadisticas.usuariosActivados(activo ? cambiados : -cambiados);
+        AfterCommit.run(() -> distintos.forEach(usuarioCache::invalidar));
+        if (cambiados > 0) {
+            // El UPDATE no devuelve qué ids cambiaron: se publican los solicitados
+            registrarCambio(activo ? UsuarioEventos.ACTIVADO : UsuarioEventos.DESACTIVADO, distintos);
+        }
+        return cambiados;
+    }
+
+    @Override
+    public int cambiarActivoSinActualizarDesde(LocalDateTime fecha, boolean activo) {
+        int cambiados = usuarioRepository.actualizarActivoSinActualizarDesde(fecha, activo, LocalDateTime.now());
+        usuarioEstadisticas.usuariosActivados(activo ? cambiados : -cambiados);
+        if (cambiados > 0) {
+            // No se sabe qué ids han cambiado: se vacía la caché entera
+            AfterCommit.run(usuarioCache::invalidarTodo);
+            registrarCambio(activo ? UsuarioEventos.ACTIVADO : UsuarioEventos.DESACTIVADO, null);
+        }
+        return cambiados;
+    }
+
+    /**
+     * Cambia el estado con un único UPDATE; si no afecta a ninguna fila se distingue
+     * entre usuario inexistente (error) y usuario que ya estaba en ese estado
+     */
+    private void cambiarActivo(Integer id, boolean activo) {
+        int cambiados = usuarioRepository.actualizarActivo(id, activo, LocalDateTime.now());
+        if (cambiados == 0) {
+            if (!usuarioRepository.existsById(id)) {
+                throw new RuntimeException("Usuario no encontrado con id: " + id);
+            }
+            return;
+        }
+        usuarioEstadisticas.usuariosActivados(activo ? 1 : -1);
+        AfterCommit.run(() -> usuarioCache.invalidar(id));
+        registrarCambio(activo ? UsuarioEventos.ACTIVADO : UsuarioEventos.DESACTIVADO, List.of(id));
     }
 
     // =============== ESTADÍSTICAS ===============
 
+    // Los contadores se sirven desde memoria; solo se consulta la BD antes de inicializarlos
+
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @SingleFlight
     public long contarActivos() {
-        return usuarioRepository.countByActivoTrue();
+        return usuarioEstadisticas.isInicializado()
+                ? usuarioEstadisticas.getActivos()
+                : usuarioRepository.countByActivoTrue();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @SingleFlight
     public long contarInactivos() {
-        return usuarioRepository.countByActivoFalse();
+        return usuarioEstadisticas.isInicializado()
+                ? usuarioEstadisticas.getInactivos()
+                : usuarioRepository.countByActivoFalse();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public EstadisticasUsuariosDto obtenerEstadisticas() {
+        if (!usuarioEstadisticas.isInicializado()) {
+            usuarioEstadisticas.reconciliar();
+        }
+        return usuarioEstadisticas.snapshot();
+    }
+
+    // =============== AUXILIARES ===============
+
+    /**
+     * Copia los campos modificables (sin tocar id, fechaCreacion ni activo)
+     * La fechaActualizacion se actualiza automáticamente con @PreUpdate
+     */
+    private void copiarCampos(Usuario origen, Usuario destino) {
+        destino.setNombre(origen.getNombre());
+        destino.setEmail(origen.getEmail());
+        destino.setGoogleId(origen.getGoogleId());
+        destino.setImagenUrl(origen.getImagenUrl());
+    }
+
+    /**
+     * Devuelve las claves ya usadas en base de datos (normalizadas) junto al id de su propietario
+     * Solo se consultan las claves que el filtro no descarta
+     */
+    private Map<String, Integer> cargarClavesOcupadas(List<String> claves,
+                                                      Predicate<String> puedeExistir,
+                                                      Function<Collection<String>, List<Usuario>> consulta,
+                                                      Function<Usuario, String> clave) {
+        List<String> distintas = claves.stream()
+                .filter(c -> c != null && !c.isEmpty())
+                .distinct()
+                .filter(puedeExistir)
+                .toList();
+
+        Map<String, Integer> ocupadas = new HashMap<>();
+        for (int i = 0; i < distintas.size(); i += MAX_PARAMETROS_IN) {
+            List<String> bloque = distintas.subList(i, Math.min(i + MAX_PARAMETROS_IN, distintas.size()));
+            for (Usuario usuario : consulta.apply(bloque)) {
+                ocupadas.put(normalizarClave(clave.apply(usuario)), usuario.getId());
+            }
+        }
+        // Las entidades solo se leyeron para comprobar unicidad
+        entityManager.clear();
+        return ocupadas;
+    }
+
+    /**
+     * Comprueba email y Google ID contra la base de datos y contra los elementos ya procesados
+     * @return Mensaje de error o null si no hay conflicto
+     */
+    private String buscarConflicto(Usuario usuario, Integer idUsuario,
+                                   Map<String, Integer> emailsOcupados, Map<String, Integer> googleIdsOcupados) {
+        if (estaOcupada(usuario.getEmail(), idUsuario, emailsOcupados)) {
+            return "Ya existe un usuario con el email: " + usuario.getEmail();
+        }
+        if (estaOcupada(usuario.getGoogleId(), idUsuario, googleIdsOcupados)) {
+            return "Ya existe un usuario con el Google ID: " + usuario.getGoogleId();
+        }
+        return null;
+    }
+
+    private boolean estaOcupada(String clave, Integer idUsuario, Map<String, Integer> ocupadas) {
+        if (clave == null || clave.isEmpty()) {
+            return false;
+        }
+        Integer propietario = ocupadas.get(normalizarClave(clave));
+        return propietario != null && !propietario.equals(idUsuario);
+    }
+
+    private void reservarClaves(Usuario usuario, Map<String, Integer> emailsOcupados, Map<String, Integer> googleIdsOcupados) {
+        if (usuario.getEmail() != null && !usuario.getEmail().isEmpty()) {
+            emailsOcupados.put(normalizarClave(usuario.getEmail()), usuario.getId());
+        }
+        if (usuario.getGoogleId() != null && !usuario.getGoogleId().isEmpty()) {
+            googleIdsOcupados.put(normalizarClave(usuario.getGoogleId()), usuario.getId());
+        }
+    }
+
+    private Usuario copiarClaves(Usuario usuario) {
+        Usuario claves = new Usuario();
+        claves.setId(usuario.getId());
+        claves.setEmail(usuario.getEmail());
+        claves.setGoogleId(usuario.getGoogleId());
+        return claves;
+    }
+
+    /**
+     * Libera las claves anteriores de un usuario si siguen asignadas a él
+     */
+    private void liberarClaves(Usuario usuario, Map<String, Integer> emailsOcupados, Map<String, Integer> googleIdsOcupados) {
+        if (usuario.getEmail() != null) {
+            emailsOcupados.remove(normalizarClave(usuario.getEmail()), usuario.getId());
+        }
+        if (usuario.getGoogleId() != null) {
+            googleIdsOcupados.remove(normalizarClave(usuario.getGoogleId()), usuario.getId());
+        }
+    }
+
+    /**
+     * SQL Server compara con una intercalación que no distingue mayúsculas
+     */
+    private String normalizarClave(String clave) {
+        return clave.toLowerCase(Locale.ROOT);
     }
 
     // =============== VALIDACIONES DE NEGOCIO ===============
@@ -170,6 +968,9 @@ public class UsuarioServiceImpl implements UsuarioService {
     @Override
     @Transactional(readOnly = true)
     public void validarEmailUnico(String email, Integer idUsuario) {
+        if (!usuarioClavesFiltro.puedeExistirEmail(email)) {
+            return;
+        }
         Optional<Usuario> usuarioExistente = usuarioRepository.findByEmail(email);
         if (usuarioExistente.isPresent() && !usuarioExistente.get().getId().equals(idUsuario)) {
             throw new IllegalArgumentException("Ya existe un usuario con el email: " + email);
@@ -179,7 +980,7 @@ public class UsuarioServiceImpl implements UsuarioService {
     @Override
     @Transactional(readOnly = true)
     public void validarGoogleIdUnico(String googleId, Integer idUsuario) {
-        if (googleId != null && !googleId.isEmpty()) {
+        if (googleId != null && !googleId.isEmpty() && usuarioClavesFiltro.puedeExistirGoogleId(googleId)) {
             Optional<Usuario> usuarioExistente = usuarioRepository.findByGoogleId(googleId);
             if (usuarioExistente.isPresent() && !usuarioExistente.get().getId().equals(idUsuario)) {
                 throw new IllegalArgumentException("Ya existe un usuario con el Google ID: " + googleId);
@@ -0,0 +1,40 @@
+package com.noe.apinoe2.service.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ejecuta acciones solo cuando la transacción actual confirma (commit)
+ * o, con {@link #runAfterCompletion}, cuando termina por commit o rollback.
+ * Fuera de una transacción la acción se ejecuta inmediatamente
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {}
+
+    public static void run(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    public static void runAfterCompletion(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
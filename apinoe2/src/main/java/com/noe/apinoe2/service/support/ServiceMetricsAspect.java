@@ -0,0 +1,47 @@
+package com.noe.apinoe2.service.support;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Tiempo de cada método público de los servicios, etiquetado por servicio y método.
+ * Se ejecuta por fuera de la transacción para incluir el commit
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry registry;
+
+    public ServiceMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.noe.apinoe2.service.impl..*(..))")
+    public Object medir(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String excepcion = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            excepcion = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("api.service")
+                    .description("Tiempo de los métodos de servicio, incluido el commit")
+                    .tag("servicio", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("metodo", joinPoint.getSignature().getName())
+                    .tag("exception", excepcion)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+}
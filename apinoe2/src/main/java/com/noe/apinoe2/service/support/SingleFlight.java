@@ -0,0 +1,18 @@
+package com.noe.apinoe2.service.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un método de lectura de servicio cuyas llamadas concurrentes con los mismos
+ * argumentos comparten una única ejecución (ver {@link SingleFlightAspect}).
+ * Los llamadores reciben el mismo objeto: solo para resultados que no se modifican.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SingleFlight {
+}
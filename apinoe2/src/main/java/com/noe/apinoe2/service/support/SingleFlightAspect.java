@@ -0,0 +1,61 @@
+package com.noe.apinoe2.service.support;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.noe.apinoe2.service.BaseService;
+import com.noe.apinoe2.util.PrimaryReads;
+import com.noe.apinoe2.util.SingleFlightGroup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Ejecuta una sola vez las llamadas concurrentes idénticas a métodos {@link SingleFlight}
+ * Va por fuera de la transacción del método: quien espera no abre transacción ni toma conexión.
+ * No se aplica dentro de una transacción de escritura (debe ver sus propios cambios) y la
+ * clave incluye la versión de datos del servicio: una llamada posterior a un commit no se
+ * une a una ejecución que empezó antes. Las lecturas forzadas al primario no se mezclan con
+ * las que pueden ir a una réplica.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class SingleFlightAspect {
+
+    private record Clave(Class<?> servicio, String metodo, List<Object> argumentos, long version, boolean primario) {}
+
+    private final SingleFlightGroup<Clave> grupo = new SingleFlightGroup<>();
+    private final MeterRegistry registry;
+
+    public SingleFlightAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.noe.apinoe2.service.impl..*(..)) && @annotation(com.noe.apinoe2.service.support.SingleFlight)")
+    public Object agrupar(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return joinPoint.proceed();
+        }
+
+        long version = joinPoint.getTarget() instanceof BaseService<?, ?> servicio ? servicio.getCacheVersion() : 0;
+        Clave clave = new Clave(joinPoint.getTarget().getClass(), joinPoint.getSignature().toLongString(),
+                Arrays.asList(joinPoint.getArgs()), version, PrimaryReads.activas());
+        String metodo = joinPoint.getSignature().getName();
+        return grupo.execute(clave, joinPoint::proceed, compartida -> Counter.builder("api.singleflight")
+                .description("Llamadas de lectura ejecutadas (lider) o resueltas con el resultado de otra en curso (compartida)")
+                .tag("metodo", metodo)
+                .tag("resultado", compartida ? "compartida" : "lider")
+                .register(registry)
+                .increment());
+    }
+}
@@ -0,0 +1,222 @@
+package com.noe.apinoe2.service.support;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.noe.apinoe2.model.Usuario;
+import com.noe.apinoe2.model.UsuarioEliminado;
+import com.noe.apinoe2.repository.UsuarioEliminadoRepository;
+import com.noe.apinoe2.repository.UsuarioRepository;
+import com.noe.apinoe2.util.TrigramIndex;
+
+/**
+ * Índice de búsqueda en memoria sobre nombre y email de los usuarios
+ * Se construye en segundo plano al arrancar y se mantiene al día con las escrituras
+ * confirmadas de esta instancia; las de otras instancias se incorporan con una
+ * reconciliación periódica de los cambios y borrados posteriores a la última pasada.
+ * Mientras no esté listo, las búsquedas deben resolverse en la base de datos.
+ */
+@Component
+public class UsuarioBusquedaIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UsuarioBusquedaIndex.class);
+
+    /**
+     * Cada reconciliación vuelve a leer desde un poco antes de la anterior: una escritura
+     * confirmada tarde (o con el reloj de otra instancia algo atrasado) no se pierde
+     */
+    private static final Duration SOLAPE = Duration.ofMinutes(1);
+    private static final int TAMANO_PAGINA = 500;
+
+    private final UsuarioRepository usuarioRepository;
+    private final UsuarioEliminadoRepository usuarioEliminadoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean habilitado;
+
+    private final TrigramIndex nombres = new TrigramIndex();
+    private final TrigramIndex emails = new TrigramIndex();
+
+    private volatile boolean listo = false;
+
+    /**
+     * Hasta dónde se han incorporado los cambios de la base de datos
+     */
+    private volatile LocalDateTime sincronizadoHasta;
+
+    /**
+     * Ids modificados durante la construcción: sus filas leídas en la carga inicial pueden estar obsoletas
+     */
+    private final Set<Integer> modificadosDuranteCarga = ConcurrentHashMap.newKeySet();
+
+    public UsuarioBusquedaIndex(UsuarioRepository usuarioRepository,
+                                UsuarioEliminadoRepository usuarioEliminadoRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.busqueda.indice.enabled:true}") boolean habilitado) {
+        this.usuarioRepository = usuarioRepository;
+        this.usuarioEliminadoRepository = usuarioEliminadoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.habilitado = habilitado;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (!habilitado) {
+            return;
+        }
+        Thread.ofPlatform()
+                .name("usuarios-indice-busqueda")
+                .daemon(true)
+                .start(this::construir);
+    }
+
+    private void construir() {
+        long inicio = System.currentTimeMillis();
+        LocalDateTime desde = LocalDateTime.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> filas = usuarioRepository.streamClavesBusqueda()) {
+                    filas.forEach(fila -> {
+                        Integer id = (Integer) fila[0];
+                        if (!modificadosDuranteCarga.contains(id)) {
+                            nombres.put(id, (String) fila[1]);
+                            emails.put(id, (String) fila[2]);
+                        }
+                    });
+                }
+            });
+            sincronizadoHasta = desde;
+            listo = true;
+            modificadosDuranteCarga.clear();
+            log.info("Índice de búsqueda de usuarios construido: {} usuarios en {} ms",
+                    nombres.size(), System.currentTimeMillis() - inicio);
+        } catch (RuntimeException e) {
+            log.error("No se pudo construir el índice de búsqueda de usuarios; se usará la base de datos", e);
+        }
+    }
+
+    /**
+     * Incorpora los usuarios modificados y borrados desde la pasada anterior, incluidos los
+     * escritos por otras instancias (recorrido keyset por idx_usuarios_fecha_actualizacion
+     * y por las marcas de borrado)
+     */
+    @Scheduled(fixedDelayString = "${app.busqueda.indice.reconciliacion:PT1M}",
+               initialDelayString = "${app.busqueda.indice.reconciliacion:PT1M}")
+    public void reconciliar() {
+        if (!listo) {
+            return;
+        }
+        LocalDateTime hasta = LocalDateTime.now();
+        LocalDateTime desde = sincronizadoHasta.minus(SOLAPE);
+        try {
+            int cambios = transactionTemplate.execute(status -> reconciliarModificados(desde, hasta)
+                    + reconciliarEliminados(desde, hasta));
+            sincronizadoHasta = hasta;
+            if (cambios > 0) {
+                log.debug("Índice de búsqueda reconciliado: {} cambios desde {}", cambios, desde);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo reconciliar el índice de búsqueda de usuarios; se reintentará", e);
+        }
+    }
+
+    private int reconciliarModificados(LocalDateTime desde, LocalDateTime hasta) {
+        int total = 0;
+        LocalDateTime fecha = desde;
+        Integer id = 0;
+        List<Usuario> pagina;
+        do {
+            pagina = usuarioRepository.findModificadosDespuesDe(fecha, id, hasta, Limit.of(TAMANO_PAGINA));
+            for (Usuario usuario : pagina) {
+                indexar(usuario);
+                fecha = usuario.getFechaActualizacion();
+                id = usuario.getId();
+            }
+            total += pagina.size();
+        } while (pagina.size() == TAMANO_PAGINA);
+        return total;
+    }
+
+    private int reconciliarEliminados(LocalDateTime desde, LocalDateTime hasta) {
+        int total = 0;
+        LocalDateTime fecha = desde;
+        Integer id = 0;
+        List<UsuarioEliminado> pagina;
+        do {
+            pagina = usuarioEliminadoRepository.findDespuesDe(fecha, id, hasta, Limit.of(TAMANO_PAGINA));
+            for (UsuarioEliminado eliminado : pagina) {
+                eliminar(eliminado.getId());
+                fecha = eliminado.getFechaEliminacion();
+                id = eliminado.getId();
+            }
+            total += pagina.size();
+        } while (pagina.size() == TAMANO_PAGINA);
+        return total;
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    /**
+     * Ids de usuarios cuyo nombre contiene el texto, ordenados por relevancia
+     */
+    public List<Integer> buscarPorNombre(String texto, int limite) {
+        return nombres.search(texto, limite);
+    }
+
+    /**
+     * Ids de usuarios cuyo email contiene el texto, ordenados por relevancia
+     */
+    public List<Integer> buscarPorEmail(String texto, int limite) {
+        return emails.search(texto, limite);
+    }
+
+    // =============== ACTUALIZACIONES ===============
+
+    /**
+     * Debe llamarse después del commit de la escritura (AfterCommit): un cambio
+     * revertido no debe quedar en el índice
+     */
+    public void indexar(Usuario usuario) {
+        if (!habilitado) {
+            return;
+        }
+        marcarModificado(usuario.getId());
+        nombres.put(usuario.getId(), usuario.getNombre());
+        emails.put(usuario.getId(), usuario.getEmail());
+    }
+
+    /**
+     * Debe llamarse después del commit del borrado (AfterCommit)
+     */
+    public void eliminar(Integer id) {
+        if (!habilitado) {
+            return;
+        }
+        marcarModificado(id);
+        nombres.remove(id);
+        emails.remove(id);
+    }
+
+    private void marcarModificado(Integer id) {
+        if (!listo) {
+            modificadosDuranteCarga.add(id);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.noe.apinoe2.service.support;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.noe.apinoe2.model.Usuario;
+import com.noe.apinoe2.util.PrimaryReads;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caché en memoria de usuarios con lectura a través (read-through)
+ * Una sola entrada por usuario, accesible por id, email o Google ID.
+ * Limitada por tamaño y tiempo de vida; guarda copias para que los llamadores
+ * no puedan modificar el contenido cacheado.
+ */
+@Component
+public class UsuarioCache {
+
+    private final Cache<Integer, Usuario> porId;
+    private final ConcurrentMap<String, Integer> porEmail = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> porGoogleId = new ConcurrentHashMap<>();
+
+    /**
+     * Se incrementa en cada invalidación: una lectura de BD iniciada antes de una
+     * escritura confirmada no debe guardar su resultado (ya obsoleto) en la caché
+     */
+    private final AtomicLong generacion = new AtomicLong();
+
+    /**
+     * Contadores de aciertos/fallos por índice (id, email, googleId)
+     */
+    private final Map<String, Counter> contadores = new HashMap<>();
+
+    public UsuarioCache(MeterRegistry registry,
+                        @Value("${app.cache.usuarios.max-size:10000}") long maxSize,
+                        @Value("${app.cache.usuarios.ttl:10m}") Duration ttl) {
+        this.porId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                // El listener se ejecuta en el hilo que reemplaza o expulsa la entrada, antes de que
+                // guardar() escriba los índices nuevos: no puede borrarlos después
+                .executor(Runnable::run)
+                .removalListener((Integer id, Usuario usuario, RemovalCause causa) -> {
+                    if (id != null && usuario != null) {
+                        quitarIndices(id, usuario);
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(registry, porId, "usuarios");
+
+        for (String indice : new String[] {"id", "email", "googleId"}) {
+            for (String resultado : new String[] {"hit", "miss"}) {
+                contadores.put(indice + ":" + resultado, Counter.builder("usuarios.cache.lookups")
+                        .description("Búsquedas en la caché de usuarios por índice")
+                        .tag("indice", indice)
+                        .tag("resultado", resultado)
+                        .register(registry));
+            }
+        }
+    }
+
+    public Optional<Usuario> porId(Integer id, Function<Integer, Optional<Usuario>> cargar) {
+        if (!usable()) {
+            return cargar.apply(id);
+        }
+        Usuario usuario = porId.getIfPresent(id);
+        return resolver("id", usuario, () -> cargar.apply(id));
+    }
+
+    public Optional<Usuario> porEmail(String email, Function<String, Optional<Usuario>> cargar) {
+        if (!usable() || email == null) {
+            return cargar.apply(email);
+        }
+        Usuario usuario = buscarPorIndice(porEmail, email, Usuario::getEmail);
+        return resolver("email", usuario, () -> cargar.apply(email));
+    }
+
+    public Optional<Usuario> porGoogleId(String googleId, Function<String, Optional<Usuario>> cargar) {
+        if (!usable() || googleId == null) {
+            return cargar.apply(googleId);
+        }
+        Usuario usuario = buscarPorIndice(porGoogleId, googleId, Usuario::getGoogleId);
+        return resolver("googleId", usuario, () -> cargar.apply(googleId));
+    }
+
+    /**
+     * Elimina la entrada del usuario (y sus índices) de la caché
+     * Debe llamarse después del commit de cualquier escritura que lo afecte
+     */
+    public void invalidar(Integer id) {
+        // Primero la generación y después el borrado: ver guardar()
+        generacion.incrementAndGet();
+        Usuario anterior = porId.asMap().remove(id);
+        if (anterior != null) {
+            quitarIndices(id, anterior);
+        }
+    }
+
+    public void invalidarTodo() {
+        generacion.incrementAndGet();
+        porId.invalidateAll();
+        porEmail.clear();
+        porGoogleId.clear();
+    }
+
+    // =============== AUXILIARES ===============
+
+    private Optional<Usuario> resolver(String indice, Usuario cacheado, Supplier<Optional<Usuario>> cargar) {
+        if (cacheado != null) {
+            contador(indice, "hit").increment();
+            return Optional.of(copiar(cacheado));
+        }
+        contador(indice, "miss").increment();
+
+        // Lo que se guarda en caché se lee del primario: una réplica con retraso lo dejaría obsoleto
+        long generacionLectura = generacion.get();
+        Optional<Usuario> cargado = PrimaryReads.ejecutar(cargar);
+        cargado.ifPresent(usuario -> guardar(usuario, generacionLectura));
+        return cargado;
+    }
+
+    private Usuario buscarPorIndice(ConcurrentMap<String, Integer> indice, String clave, Function<Usuario, String> campo) {
+        Integer id = indice.get(normalizar(clave));
+        if (id == null) {
+            return null;
+        }
+        Usuario usuario = porId.getIfPresent(id);
+        // El índice puede apuntar a una entrada ya expulsada o con la clave cambiada
+        if (usuario == null || campo.apply(usuario) == null || !normalizar(campo.apply(usuario)).equals(normalizar(clave))) {
+            return null;
+        }
+        return usuario;
+    }
+
+    /**
+     * La comprobación de la generación y la escritura van juntas en compute: un invalidar()
+     * que incremente la generación después de la comprobación espera en su remove(id) a que
+     * termine y borra la entrada recién guardada, en lugar de perderse
+     */
+    private void guardar(Usuario usuario, long generacionLectura) {
+        if (usuario.getId() == null) {
+            return;
+        }
+        Usuario copia = copiar(usuario);
+        Usuario guardado = porId.asMap().compute(copia.getId(),
+                (id, actual) -> generacion.get() == generacionLectura ? copia : actual);
+        if (guardado != copia) {
+            return;
+        }
+        if (copia.getEmail() != null) {
+            porEmail.put(normalizar(copia.getEmail()), copia.getId());
+        }
+        if (copia.getGoogleId() != null && !copia.getGoogleId().isEmpty()) {
+            porGoogleId.put(normalizar(copia.getGoogleId()), copia.getId());
+        }
+    }
+
+    /**
+     * Quita las claves de la entrada retirada que ya no use la entrada vigente del mismo id
+     * (al reemplazar una entrada con el mismo email, su índice debe seguir apuntando al id)
+     */
+    private void quitarIndices(Integer id, Usuario usuario) {
+        Usuario vigente = porId.asMap().get(id);
+        if (usuario.getEmail() != null && (vigente == null || !mismaClave(usuario.getEmail(), vigente.getEmail()))) {
+            porEmail.remove(normalizar(usuario.getEmail()), id);
+        }
+        if (usuario.getGoogleId() != null && (vigente == null || !mismaClave(usuario.getGoogleId(), vigente.getGoogleId()))) {
+            porGoogleId.remove(normalizar(usuario.getGoogleId()), id);
+        }
+    }
+
+    private static boolean mismaClave(String anterior, String actual) {
+        return actual != null && normalizar(anterior).equals(normalizar(actual));
+    }
+
+    /**
+     * Dentro de una transacción de escritura se lee siempre de la base de datos:
+     * la caché no refleja cambios aún no confirmados
+     */
+    private boolean usable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private Counter contador(String indice, String resultado) {
+        return contadores.get(indice + ":" + resultado);
+    }
+
+    private static String normalizar(String clave) {
+        return clave.toLowerCase(Locale.ROOT);
+    }
+
+    private static Usuario copiar(Usuario origen) {
+        Usuario copia = new Usuario();
+        copia.setId(origen.getId());
+        copia.setNombre(origen.getNombre());
+        copia.setEmail(origen.getEmail());
+        copia.setGoogleId(origen.getGoogleId());
+        copia.setImagenUrl(origen.getImagenUrl());
+        copia.setFechaCreacion(origen.getFechaCreacion());
+        copia.setFechaActualizacion(origen.getFechaActualizacion());
+        copia.setActivo(origen.getActivo());
+        copia.setVersion(origen.getVersion());
+        return copia;
+    }
+}
@@ -0,0 +1,249 @@
+package com.noe.apinoe2.service.support;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.noe.apinoe2.repository.UsuarioRepository;
+import com.noe.apinoe2.util.BloomFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Filtros de Bloom con los emails y Google IDs existentes
+ * Permiten responder "no existe" sin consultar la base de datos; ante un posible
+ * positivo la comprobación sigue yendo a la BD. Se construyen en segundo plano al
+ * arrancar y se reconstruyen periódicamente para descartar claves borradas.
+ * Las claves nuevas se añaden antes del commit: un rollback solo deja un falso positivo.
+ * El filtro es local a cada instancia: las claves que escribe otra instancia no se ven hasta la
+ * siguiente reconstrucción. Por eso solo evita consultas en las comprobaciones previas; la
+ * unicidad la garantizan los índices únicos de email y google_id (violación = 409).
+ */
+@Component
+public class UsuarioClavesFiltro {
+
+    private static final Logger log = LoggerFactory.getLogger(UsuarioClavesFiltro.class);
+
+    /**
+     * Espera máxima a que terminen las escrituras iniciadas antes de una reconstrucción
+     */
+    private static final Duration ESPERA_ESCRITURAS = Duration.ofSeconds(60);
+
+    private record Filtros(BloomFilter emails, BloomFilter googleIds) {}
+
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean habilitado;
+    private final long capacidadMinima;
+    private final double falsosPositivos;
+
+    /**
+     * Filtros en uso; null hasta la primera construcción (se consulta siempre la BD)
+     */
+    private volatile Filtros actual;
+
+    /**
+     * Filtros en construcción: reciben también las claves escritas mientras se cargan
+     */
+    private volatile Filtros enConstruccion;
+
+    /**
+     * Escrituras en curso por época. Al empezar una reconstrucción se cambia de época y
+     * se espera a que las escrituras de la anterior terminen antes de leer las claves,
+     * de modo que ninguna clave añadida solo a los filtros viejos quede sin leer.
+     */
+    private final AtomicLong[] escriturasEnCurso = {new AtomicLong(), new AtomicLong()};
+    private int epoca;
+    private final ReentrantReadWriteLock cambioEpoca = new ReentrantReadWriteLock();
+    private final AtomicBoolean construyendo = new AtomicBoolean(false);
+
+    private final Counter emailsDescartados;
+    private final Counter emailsPosibles;
+    private final Counter googleIdsDescartados;
+    private final Counter googleIdsPosibles;
+
+    public UsuarioClavesFiltro(UsuarioRepository usuarioRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.usuarios.filtro-claves.enabled:true}") boolean habilitado,
+                               @Value("${app.usuarios.filtro-claves.capacidad-minima:100000}") long capacidadMinima,
+                               @Value("${app.usuarios.filtro-claves.falsos-positivos:0.01}") double falsosPositivos) {
+        this.usuarioRepository = usuarioRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.habilitado = habilitado;
+        this.capacidadMinima = capacidadMinima;
+        this.falsosPositivos = falsosPositivos;
+        this.emailsDescartados = contador(meterRegistry, "email", "descartado");
+        this.emailsPosibles = contador(meterRegistry, "email", "posible");
+        this.googleIdsDescartados = contador(meterRegistry, "googleId", "descartado");
+        this.googleIdsPosibles = contador(meterRegistry, "googleId", "posible");
+    }
+
+    private static Counter contador(MeterRegistry registry, String clave, String resultado) {
+        return Counter.builder("usuarios.claves.filtro")
+                .description("Comprobaciones de existencia resueltas por el filtro (descartado) o enviadas a la BD (posible)")
+                .tag("clave", clave)
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (!habilitado) {
+            return;
+        }
+        Thread.ofPlatform()
+                .name("usuarios-filtro-claves")
+                .daemon(true)
+                .start(this::reconstruir);
+    }
+
+    /**
+     * Vuelve a cargar las claves desde la base de datos, redimensionando los filtros
+     * según el número de usuarios y descartando las claves de usuarios borrados
+     */
+    @Scheduled(fixedDelayString = "${app.usuarios.filtro-claves.reconstruccion:PT6H}",
+               initialDelayString = "${app.usuarios.filtro-claves.reconstruccion:PT6H}")
+    public void reconstruir() {
+        if (!habilitado || !construyendo.compareAndSet(false, true)) {
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        try {
+            long total = transactionTemplate.execute(status -> usuarioRepository.count());
+            // Margen para el crecimiento hasta la próxima reconstrucción
+            long capacidad = Math.max(capacidadMinima, total * 2);
+            Filtros nuevos = new Filtros(new BloomFilter(capacidad, falsosPositivos),
+                    new BloomFilter(capacidad, falsosPositivos));
+
+            int epocaAnterior;
+            cambioEpoca.writeLock().lock();
+            try {
+                enConstruccion = nuevos;
+                epocaAnterior = epoca;
+                epoca = 1 - epoca;
+            } finally {
+                cambioEpoca.writeLock().unlock();
+            }
+            esperarEscrituras(escriturasEnCurso[epocaAnterior]);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> filas = usuarioRepository.streamClavesUnicas()) {
+                    filas.forEach(fila -> agregarA(nuevos, (String) fila[0], (String) fila[1]));
+                }
+            });
+            actual = nuevos;
+            log.info("Filtro de claves de usuarios construido: {} usuarios, {} bits y {} hashes por filtro en {} ms",
+                    total, nuevos.emails().getNumBits(), nuevos.emails().getNumHashes(),
+                    System.currentTimeMillis() - inicio);
+        } catch (RuntimeException e) {
+            log.error("No se pudo construir el filtro de claves de usuarios; se mantiene el anterior", e);
+        } finally {
+            enConstruccion = null;
+            construyendo.set(false);
+        }
+    }
+
+    private void esperarEscrituras(AtomicLong pendientes) {
+        long limite = System.nanoTime() + ESPERA_ESCRITURAS.toNanos();
+        while (pendientes.get() > 0) {
+            if (System.nanoTime() > limite) {
+                log.warn("Reconstrucción del filtro de claves sin esperar a {} escrituras en curso", pendientes.get());
+                return;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public boolean isListo() {
+        return actual != null;
+    }
+
+    /**
+     * false solo si el email seguro que no existe; true si puede existir o el filtro no está listo
+     */
+    public boolean puedeExistirEmail(String email) {
+        Filtros filtros = actual;
+        if (filtros == null || email == null) {
+            return true;
+        }
+        boolean posible = filtros.emails().mightContain(normalizar(email));
+        (posible ? emailsPosibles : emailsDescartados).increment();
+        return posible;
+    }
+
+    /**
+     * false solo si el Google ID seguro que no existe; true si puede existir o el filtro no está listo
+     */
+    public boolean puedeExistirGoogleId(String googleId) {
+        Filtros filtros = actual;
+        if (filtros == null || googleId == null) {
+            return true;
+        }
+        boolean posible = filtros.googleIds().mightContain(normalizar(googleId));
+        (posible ? googleIdsPosibles : googleIdsDescartados).increment();
+        return posible;
+    }
+
+    // =============== ALTAS (antes del commit) ===============
+
+    /**
+     * Registra las claves que la transacción actual va a escribir
+     * Debe llamarse antes de que la fila sea visible para otras transacciones
+     */
+    public void agregar(String email, String googleId) {
+        if (!habilitado) {
+            return;
+        }
+        int epocaEscritura;
+        cambioEpoca.readLock().lock();
+        try {
+            epocaEscritura = epoca;
+            escriturasEnCurso[epocaEscritura].incrementAndGet();
+            agregarA(actual, email, googleId);
+            agregarA(enConstruccion, email, googleId);
+        } finally {
+            cambioEpoca.readLock().unlock();
+        }
+        AfterCommit.runAfterCompletion(() -> escriturasEnCurso[epocaEscritura].decrementAndGet());
+    }
+
+    private static void agregarA(Filtros filtros, String email, String googleId) {
+        if (filtros == null) {
+            return;
+        }
+        if (email != null && !email.isEmpty()) {
+            filtros.emails().put(normalizar(email));
+        }
+        if (googleId != null && !googleId.isEmpty()) {
+            filtros.googleIds().put(normalizar(googleId));
+        }
+    }
+
+    /**
+     * SQL Server compara con una intercalación que no distingue mayúsculas
+     */
+    private static String normalizar(String clave) {
+        return clave.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,109 @@
+package com.noe.apinoe2.service.support;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.noe.apinoe2.dto.EstadisticasUsuariosDto;
+import com.noe.apinoe2.repository.UsuarioRepository;
+
+/**
+ * Contadores de usuarios activos/inactivos mantenidos en memoria
+ * Se inicializan con un único GROUP BY al arrancar, se actualizan con cada escritura
+ * confirmada y se reconcilian periódicamente contra la base de datos.
+ */
+@Component
+public class UsuarioEstadisticas {
+
+    private static final Logger log = LoggerFactory.getLogger(UsuarioEstadisticas.class);
+
+    private final UsuarioRepository usuarioRepository;
+
+    private final AtomicLong activos = new AtomicLong();
+    private final AtomicLong inactivos = new AtomicLong();
+    private volatile boolean inicializado = false;
+    private volatile LocalDateTime ultimaReconciliacion;
+
+    public UsuarioEstadisticas(UsuarioRepository usuarioRepository) {
+        this.usuarioRepository = usuarioRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconciliar();
+    }
+
+    /**
+     * Vuelve a leer los contadores de la base de datos
+     * Corrige desviaciones por escrituras hechas fuera de esta instancia
+     */
+    @Scheduled(fixedDelayString = "${app.estadisticas.reconciliacion:PT5M}",
+               initialDelayString = "${app.estadisticas.reconciliacion:PT5M}")
+    public void reconciliar() {
+        long nuevosActivos = 0;
+        long nuevosInactivos = 0;
+        for (Object[] fila : usuarioRepository.contarPorEstado()) {
+            long total = ((Number) fila[1]).longValue();
+            if (Boolean.TRUE.equals(fila[0])) {
+                nuevosActivos = total;
+            } else {
+                nuevosInactivos = total;
+            }
+        }
+
+        if (inicializado && (nuevosActivos != activos.get() || nuevosInactivos != inactivos.get())) {
+            log.info("Contadores de usuarios reconciliados: activos {} -> {}, inactivos {} -> {}",
+                    activos.get(), nuevosActivos, inactivos.get(), nuevosInactivos);
+        }
+        activos.set(nuevosActivos);
+        inactivos.set(nuevosInactivos);
+        ultimaReconciliacion = LocalDateTime.now();
+        inicializado = true;
+    }
+
+    public boolean isInicializado() {
+        return inicializado;
+    }
+
+    public long getActivos() {
+        return activos.get();
+    }
+
+    public long getInactivos() {
+        return inactivos.get();
+    }
+
+    public EstadisticasUsuariosDto snapshot() {
+        return new EstadisticasUsuariosDto(activos.get(), inactivos.get(), ultimaReconciliacion);
+    }
+
+    // =============== ACTUALIZACIONES (tras el commit) ===============
+
+    public void usuarioCreado(boolean activo) {
+        registrar(activo ? 1 : 0, activo ? 0 : 1);
+    }
+
+    public void usuarioEliminado(boolean activo) {
+        registrar(activo ? -1 : 0, activo ? 0 : -1);
+    }
+
+    /**
+     * Registra usuarios que pasan de inactivo a activo (o al revés si cantidad es negativa)
+     */
+    public void usuariosActivados(long cantidad) {
+        registrar(cantidad, -cantidad);
+    }
+
+    private void registrar(long deltaActivos, long deltaInactivos) {
+        AfterCommit.run(() -> {
+            activos.addAndGet(deltaActivos);
+            inactivos.addAndGet(deltaInactivos);
+        });
+    }
+}
@@ -0,0 +1,236 @@
+package com.noe.apinoe2.service.support;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Flujo de cambios de usuarios para los clientes suscritos (Server-Sent Events)
+ * Los eventos se publican tras el commit y se guardan en un historial circular para que un
+ * cliente que reconecta con Last-Event-ID reciba lo que se perdió. Cada suscriptor tiene una
+ * cola acotada; si no la vacía a tiempo se le desconecta y reanuda desde el historial.
+ */
+@Component
+public class UsuarioEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(UsuarioEventos.class);
+
+    public static final String CREADO = "creado";
+    public static final String ACTUALIZADO = "actualizado";
+    public static final String ACTIVADO = "activado";
+    public static final String DESACTIVADO = "desactivado";
+    public static final String ELIMINADO = "eliminado";
+    /**
+     * No se pueden reanudar los eventos desde el Last-Event-ID recibido: el cliente debe recargar
+     */
+    public static final String REINICIO = "reinicio";
+
+    /**
+     * Evento ya serializado una vez para todos los suscriptores
+     * El id lleva un prefijo del arranque: un Last-Event-ID de otra instancia o de antes de
+     * reiniciar no se confunde con uno de este historial.
+     */
+    public record Evento(String id, String tipo, String datos) {
+
+        static final Evento LATIDO = new Evento(null, null, null);
+
+        public boolean esLatido() {
+            return this == LATIDO;
+        }
+    }
+
+    /**
+     * Destino de los eventos de un cliente (la conexión SSE)
+     */
+    public interface Suscriptor {
+
+        /**
+         * Puede bloquear mientras el cliente lee; se llama desde un hilo virtual propio
+         */
+        void enviar(Evento evento) throws IOException;
+
+        /**
+         * Cierra la conexión; el cliente reconectará con su último id
+         */
+        void cerrar();
+    }
+
+    /**
+     * Datos del evento: ids afectados o null en cambios masivos sin detalle (hay que recargar)
+     */
+    private record Datos(String tipo, List<Integer> ids) {}
+
+    private final ObjectMapper objectMapper;
+    private final String instancia = Long.toString(System.currentTimeMillis(), 36);
+    private final Evento[] historial;
+    private final int capacidadCola;
+    private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+    private final ExecutorService envios = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("usuarios-eventos-", 0).factory());
+    private final Counter desconectados;
+
+    /**
+     * Número del último evento publicado; el evento n ocupa historial[n % historial.length]
+     */
+    private long ultimo;
+
+    public UsuarioEventos(ObjectMapper objectMapper, MeterRegistry registry,
+                          @Value("${app.usuarios.eventos.historial:1024}") int historial,
+                          @Value("${app.usuarios.eventos.buffer:256}") int capacidadCola) {
+        this.objectMapper = objectMapper;
+        this.historial = new Evento[historial];
+        this.capacidadCola = capacidadCola;
+        Gauge.builder("usuarios.eventos.suscriptores", suscripciones, Set::size)
+                .description("Clientes conectados al flujo de eventos de usuarios")
+                .register(registry);
+        this.desconectados = Counter.builder("usuarios.eventos.desconectados")
+                .description("Suscriptores desconectados por no vaciar su cola a tiempo")
+                .register(registry);
+    }
+
+    /**
+     * Publica el evento cuando la transacción actual confirma
+     */
+    public void publicarTrasCommit(String tipo, List<Integer> ids) {
+        AfterCommit.run(() -> publicar(tipo, ids));
+    }
+
+    public void publicar(String tipo, List<Integer> ids) {
+        String datos;
+        try {
+            datos = objectMapper.writeValueAsString(new Datos(tipo, ids));
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo serializar el evento {}: {}", tipo, e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            long numero = ++ultimo;
+            Evento evento = new Evento(instancia + "-" + numero, tipo, datos);
+            historial[(int) (numero % historial.length)] = evento;
+            suscripciones.forEach(suscripcion -> suscripcion.encolar(evento));
+        }
+    }
+
+    /**
+     * Registra al suscriptor y le envía los eventos posteriores a ultimoId que sigan en el historial.
+     * Si el id no es de esta instancia o ya salió del historial, recibe un evento de reinicio.
+     * @return Suscripción que hay que cancelar cuando la conexión termina
+     */
+    public Suscripcion suscribir(String ultimoId, Suscriptor suscriptor) {
+        Suscripcion suscripcion = new Suscripcion(suscriptor);
+        synchronized (this) {
+            pendientesDesde(ultimoId).forEach(suscripcion::encolar);
+            suscripciones.add(suscripcion);
+        }
+        return suscripcion;
+    }
+
+    /**
+     * Mantiene vivas las conexiones inactivas y detecta los clientes que ya no están
+     */
+    @Scheduled(fixedDelayString = "${app.usuarios.eventos.latido:PT20S}")
+    public void latido() {
+        suscripciones.forEach(suscripcion -> suscripcion.encolar(Evento.LATIDO));
+    }
+
+    private List<Evento> pendientesDesde(String ultimoId) {
+        if (ultimoId == null || ultimoId.isBlank()) {
+            return List.of();
+        }
+        long desde = numeroDe(ultimoId);
+        if (desde < 0 || desde > ultimo || ultimo - desde > Math.min(historial.length, capacidadCola)) {
+            String datos = "{\"tipo\":\"" + REINICIO + "\",\"ids\":null}";
+            return List.of(new Evento(instancia + "-" + ultimo, REINICIO, datos));
+        }
+        List<Evento> pendientes = new ArrayList<>((int) (ultimo - desde));
+        for (long n = desde + 1; n <= ultimo; n++) {
+            pendientes.add(historial[(int) (n % historial.length)]);
+        }
+        return pendientes;
+    }
+
+    private long numeroDe(String id) {
+        if (id == null || !id.startsWith(instancia + "-")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(id.substring(instancia.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Cola acotada de un suscriptor, vaciada por un único hilo a la vez
+     */
+    public final class Suscripcion {
+
+        private final Suscriptor suscriptor;
+        private final BlockingQueue<Evento> cola = new ArrayBlockingQueue<>(capacidadCola);
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private volatile boolean cancelada;
+
+        private Suscripcion(Suscriptor suscriptor) {
+            this.suscriptor = suscriptor;
+        }
+
+        public void cancelar() {
+            cancelada = true;
+            suscripciones.remove(this);
+        }
+
+        private void encolar(Evento evento) {
+            if (cancelada) {
+                return;
+            }
+            if (!cola.offer(evento)) {
+                if (evento.esLatido()) {
+                    return;
+                }
+                desconectados.increment();
+                cancelar();
+                suscriptor.cerrar();
+                return;
+            }
+            if (enviando.compareAndSet(false, true)) {
+                envios.execute(this::vaciar);
+            }
+        }
+
+        private void vaciar() {
+            do {
+                Evento evento;
+                while (!cancelada && (evento = cola.poll()) != null) {
+                    try {
+                        suscriptor.enviar(evento);
+                    } catch (IOException | RuntimeException e) {
+                        // Cliente desconectado: la conexión ya no sirve
+                        cancelar();
+                    }
+                }
+                enviando.set(false);
+                // Un evento encolado justo después del último poll necesita otra pasada
+            } while (!cancelada && !cola.isEmpty() && enviando.compareAndSet(false, true));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.noe.apinoe2.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite de concurrencia adaptativo AIMD (aumento aditivo, reducción multiplicativa)
+ * Cada petición que termina por debajo de la latencia objetivo con el límite casi lleno
+ * lo sube en 1/límite (≈ +1 por ventana); una lenta o fallida lo multiplica por el factor
+ * de reducción, como mucho una vez por latencia objetivo para no desplomarlo en una ráfaga.
+ */
+public class AimdLimiter {
+
+    private final int minimo;
+    private final int maximo;
+    private final long latenciaObjetivoNanos;
+    private final double factorReduccion;
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private volatile double limite;
+    private long ultimaReduccion = System.nanoTime();
+
+    public AimdLimiter(int inicial, int minimo, int maximo, long latenciaObjetivoNanos, double factorReduccion) {
+        if (minimo < 1 || maximo < minimo) {
+            throw new IllegalArgumentException("Límites no válidos: mínimo " + minimo + ", máximo " + maximo);
+        }
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.latenciaObjetivoNanos = latenciaObjetivoNanos;
+        this.factorReduccion = factorReduccion;
+        this.limite = Math.max(minimo, Math.min(maximo, inicial));
+    }
+
+    /**
+     * Reserva un hueco si hay capacidad; no espera
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int actual = enCurso.get();
+            if (actual >= (int) limite) {
+                return false;
+            }
+            if (enCurso.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera el hueco y ajusta el límite con la latencia observada
+     */
+    public void release(long latenciaNanos, boolean fallo) {
+        int enVuelo = enCurso.getAndDecrement();
+        synchronized (this) {
+            long ahora = System.nanoTime();
+            if (fallo || latenciaNanos > latenciaObjetivoNanos) {
+                if (ahora - ultimaReduccion >= latenciaObjetivoNanos) {
+                    limite = Math.max(minimo, limite * factorReduccion);
+                    ultimaReduccion = ahora;
+                }
+            } else if (enVuelo * 2 >= limite) {
+                // Solo crece si el límite se está usando: con poca carga no dice nada
+                limite = Math.min(maximo, limite + 1 / limite);
+            }
+        }
+    }
+
+    public int getLimite() {
+        return (int) limite;
+    }
+
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+}
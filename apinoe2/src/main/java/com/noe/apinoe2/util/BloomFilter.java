@@ -0,0 +1,82 @@
+package com.noe.apinoe2.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom para cadenas: responde "seguro que no está" o "puede estar"
+ * Dimensionado a partir del número esperado de claves y la tasa de falsos positivos;
+ * las k posiciones se derivan de un único hash de 64 bits (h1 + i·h2).
+ * Inserciones y consultas son concurrentes y sin bloqueos.
+ */
+public class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray palabras;
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilter(long capacidadEsperada, double probabilidadFalsoPositivo) {
+        if (probabilidadFalsoPositivo <= 0 || probabilidadFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("La probabilidad de falso positivo debe estar entre 0 y 1");
+        }
+        long n = Math.max(1, capacidadEsperada);
+        long bits = (long) Math.ceil(-n * Math.log(probabilidadFalsoPositivo) / (LN2 * LN2));
+        int numPalabras = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.palabras = new AtomicLongArray(numPalabras);
+        this.numBits = numPalabras * 64L;
+        this.numHashes = (int) Math.max(1, Math.round((double) numBits / n * LN2));
+    }
+
+    public void put(String clave) {
+        long hash = hash(clave);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+            long mascara = 1L << bit;
+            int palabra = (int) (bit >>> 6);
+            if ((palabras.get(palabra) & mascara) == 0) {
+                palabras.accumulateAndGet(palabra, mascara, (actual, m) -> actual | m);
+            }
+        }
+    }
+
+    public boolean mightContain(String clave) {
+        long hash = hash(clave);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+            if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    /**
+     * FNV-1a de 64 bits con el mezclado final de MurmurHash3 para repartir bien los bits altos
+     */
+    private static long hash(String clave) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < clave.length(); i++) {
+            h ^= clave.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
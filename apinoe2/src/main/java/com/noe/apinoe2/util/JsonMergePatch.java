@@ -0,0 +1,39 @@
+package com.noe.apinoe2.util;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * JSON Merge Patch (RFC 7396): los campos del parche reemplazan a los del documento,
+ * null elimina el campo y los objetos se combinan de forma recursiva
+ */
+public final class JsonMergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private JsonMergePatch() {
+    }
+
+    /**
+     * Aplica el parche sobre una copia del documento; el original no se modifica
+     */
+    public static JsonNode apply(JsonNode target, JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            return patch == null ? target : patch.deepCopy();
+        }
+        ObjectNode resultado = target != null && target.isObject()
+                ? ((ObjectNode) target).deepCopy()
+                : JsonNodeFactory.instance.objectNode();
+        for (Map.Entry<String, JsonNode> campo : patch.properties()) {
+            if (campo.getValue().isNull()) {
+                resultado.remove(campo.getKey());
+            } else {
+                resultado.set(campo.getKey(), apply(resultado.get(campo.getKey()), campo.getValue()));
+            }
+        }
+        return resultado;
+    }
+}
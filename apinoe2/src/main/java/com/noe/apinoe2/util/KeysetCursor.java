@@ -0,0 +1,46 @@
+package com.noe.apinoe2.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Codifica y decodifica cursores opacos para paginación keyset
+ * Un cursor guarda los valores de la clave de ordenación de la última fila entregada,
+ * por ejemplo (id) o (fechaCreacion, id)
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARADOR = "|";
+
+    private KeysetCursor() {}
+
+    public static String encode(Object... valores) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                sb.append(SEPARADOR);
+            }
+            sb.append(valores[i]);
+        }
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Devuelve las partes del cursor, validando que tenga el número esperado
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public static String[] decode(String cursor, int partes) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] valores = texto.split("\\" + SEPARADOR, -1);
+            if (valores.length != partes) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            return valores;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+}
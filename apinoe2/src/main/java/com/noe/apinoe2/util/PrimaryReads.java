@@ -0,0 +1,49 @@
+package com.noe.apinoe2.util;
+
+import java.util.function.Supplier;
+
+/**
+ * Marca el hilo actual para que sus transacciones de solo lectura usen el primario en lugar
+ * de una réplica: lecturas de un cliente que acaba de escribir y cargas que se guardan en
+ * caché (una réplica con retraso dejaría datos obsoletos en memoria). Los ámbitos se anidan.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> ACTIVAS = new ThreadLocal<>();
+
+    /**
+     * Ámbito abierto con {@link #abrir()}; al cerrarlo se restaura el estado anterior
+     */
+    @FunctionalInterface
+    public interface Ambito extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private PrimaryReads() {}
+
+    public static boolean activas() {
+        return Boolean.TRUE.equals(ACTIVAS.get());
+    }
+
+    public static Ambito abrir() {
+        Boolean anterior = ACTIVAS.get();
+        ACTIVAS.set(Boolean.TRUE);
+        return () -> {
+            if (anterior == null) {
+                ACTIVAS.remove();
+            } else {
+                ACTIVAS.set(anterior);
+            }
+        };
+    }
+
+    public static <T> T ejecutar(Supplier<T> lectura) {
+        Ambito ambito = abrir();
+        try {
+            return lectura.get();
+        } finally {
+            ambito.close();
+        }
+    }
+}
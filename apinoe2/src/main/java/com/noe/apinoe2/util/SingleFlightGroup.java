@@ -0,0 +1,57 @@
+package com.noe.apinoe2.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Agrupa llamadas concurrentes con la misma clave: la primera ejecuta la carga y las que
+ * llegan mientras está en curso esperan y reciben su mismo resultado (o excepción).
+ * No guarda nada: al terminar, la siguiente llamada vuelve a ejecutar la carga.
+ */
+public class SingleFlightGroup<K> {
+
+    /**
+     * Carga que puede lanzar cualquier excepción (por ejemplo, ProceedingJoinPoint.proceed)
+     */
+    @FunctionalInterface
+    public interface Carga {
+        Object ejecutar() throws Throwable;
+    }
+
+    private final Map<K, CompletableFuture<Object>> enCurso = new ConcurrentHashMap<>();
+
+    /**
+     * @param compartida se invoca con true si el resultado se ha compartido con otra llamada en curso
+     */
+    public Object execute(K clave, Carga carga, Consumer<Boolean> compartida) throws Throwable {
+        CompletableFuture<Object> propia = new CompletableFuture<>();
+        CompletableFuture<Object> existente = enCurso.putIfAbsent(clave, propia);
+        if (existente != null) {
+            compartida.accept(true);
+            try {
+                return existente.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+
+        compartida.accept(false);
+        try {
+            Object resultado = carga.ejecutar();
+            propia.complete(resultado);
+            return resultado;
+        } catch (Throwable e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propia);
+        }
+    }
+
+    public int getEnCurso() {
+        return enCurso.size();
+    }
+}
@@ -0,0 +1,201 @@
+package com.noe.apinoe2.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice de trigramas en memoria para búsqueda por subcadena (equivalente a LIKE %texto%)
+ * Cada texto se descompone en trigramas; una búsqueda toma la lista de ids del trigrama
+ * menos frecuente de la consulta y verifica cada candidato, sin recorrer todos los textos.
+ * Las búsquedas no bloquean; las escrituras se serializan.
+ */
+public class TrigramIndex {
+
+    private static final int N = 3;
+
+    /**
+     * Una consulta más corta no tiene trigramas y obligaría a recorrer todos los textos
+     */
+    public static final int LONGITUD_MINIMA_CONSULTA = N;
+
+    private final Map<Integer, String> textos = new ConcurrentHashMap<>();
+    private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+
+    /**
+     * Indexa (o reindexa) el texto asociado a un id
+     */
+    public synchronized void put(int id, String texto) {
+        String nuevo = texto != null ? normalizar(texto) : null;
+        String anterior = nuevo != null ? textos.put(id, nuevo) : textos.remove(id);
+        if (nuevo != null && nuevo.equals(anterior)) {
+            return;
+        }
+
+        Set<String> gramasAnteriores = anterior != null ? trigramas(anterior) : Set.of();
+        Set<String> gramasNuevos = nuevo != null ? trigramas(nuevo) : Set.of();
+        for (String grama : gramasAnteriores) {
+            if (!gramasNuevos.contains(grama)) {
+                Postings lista = postings.get(grama);
+                if (lista != null) {
+                    lista.remove(id);
+                    if (lista.size() == 0) {
+                        postings.remove(grama);
+                    }
+                }
+            }
+        }
+        for (String grama : gramasNuevos) {
+            if (!gramasAnteriores.contains(grama)) {
+                postings.computeIfAbsent(grama, g -> new Postings()).add(id);
+            }
+        }
+    }
+
+    public void remove(int id) {
+        put(id, null);
+    }
+
+    public int size() {
+        return textos.size();
+    }
+
+    /**
+     * Busca los ids cuyo texto contiene la consulta, ordenados por relevancia:
+     * coincidencia exacta, prefijo, inicio de palabra y resto; a igualdad, textos más cortos primero.
+     * El orden es total: los resultados con un límite mayor empiezan por los de uno menor.
+     * @throws IllegalArgumentException si la consulta tiene menos de LONGITUD_MINIMA_CONSULTA caracteres
+     */
+    public List<Integer> search(String consulta, int limite) {
+        String q = normalizar(consulta);
+        if (q.length() < LONGITUD_MINIMA_CONSULTA) {
+            throw new IllegalArgumentException(
+                    "La búsqueda necesita al menos " + LONGITUD_MINIMA_CONSULTA + " caracteres");
+        }
+        if (limite <= 0) {
+            return List.of();
+        }
+
+        Postings candidatos = null;
+        for (String grama : trigramas(q)) {
+            Postings lista = postings.get(grama);
+            if (lista == null) {
+                return List.of();
+            }
+            if (candidatos == null || lista.size() < candidatos.size()) {
+                candidatos = lista;
+            }
+        }
+        PriorityQueue<Resultado> mejores = new PriorityQueue<>(Comparator.reverseOrder());
+        for (int id : candidatos.toArray()) {
+            String texto = textos.get(id);
+            if (texto != null) {
+                evaluar(id, texto, q, limite, mejores);
+            }
+        }
+
+        List<Resultado> ordenados = new ArrayList<>(mejores);
+        ordenados.sort(Comparator.naturalOrder());
+        return ordenados.stream().map(Resultado::id).toList();
+    }
+
+    private static void evaluar(int id, String texto, String q, int limite, PriorityQueue<Resultado> mejores) {
+        int posicion = texto.indexOf(q);
+        if (posicion < 0) {
+            return;
+        }
+        Resultado resultado = new Resultado(id, rango(texto, q, posicion), texto.length());
+        if (mejores.size() < limite) {
+            mejores.add(resultado);
+        } else if (resultado.compareTo(mejores.peek()) < 0) {
+            mejores.poll();
+            mejores.add(resultado);
+        }
+    }
+
+    private static int rango(String texto, String q, int posicion) {
+        if (texto.length() == q.length()) {
+            return 0;
+        }
+        if (posicion == 0) {
+            return 1;
+        }
+        // Inicio de palabra: también vale tras '@' o '.' en emails
+        for (int p = posicion; p >= 0; p = texto.indexOf(q, p + 1)) {
+            if (!Character.isLetterOrDigit(texto.charAt(p - 1))) {
+                return 2;
+            }
+        }
+        return 3;
+    }
+
+    private static Set<String> trigramas(String texto) {
+        Set<String> gramas = new LinkedHashSet<>();
+        for (int i = 0; i + N <= texto.length(); i++) {
+            gramas.add(texto.substring(i, i + N));
+        }
+        return gramas;
+    }
+
+    private static String normalizar(String texto) {
+        return texto.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Resultado(int id, int rango, int longitud) implements Comparable<Resultado> {
+        @Override
+        public int compareTo(Resultado otro) {
+            int c = Integer.compare(rango, otro.rango);
+            if (c == 0) {
+                c = Integer.compare(longitud, otro.longitud);
+            }
+            return c != 0 ? c : Integer.compare(id, otro.id);
+        }
+    }
+
+    /**
+     * Lista ordenada y compacta de ids (4 bytes por entrada)
+     * Los ids nuevos suelen ser crecientes, por lo que añadir es normalmente O(1)
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        synchronized void add(int id) {
+            int pos = size > 0 && ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0 && pos < size) {
+                return;
+            }
+            int insercion = pos >= 0 ? pos : -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insercion, ids, insercion + 1, size - insercion);
+            ids[insercion] = id;
+            size++;
+        }
+
+        synchronized void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+                size--;
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
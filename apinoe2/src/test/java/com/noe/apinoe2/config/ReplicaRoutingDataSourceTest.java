@@ -0,0 +1,145 @@
+package com.noe.apinoe2.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.noe.apinoe2.util.PrimaryReads;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Enrutado de lecturas con bases H2 embebidas: un primario y dos réplicas que
+ * se distinguen por el contenido de la tabla origen
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private HikariDataSource primaria;
+    private HikariDataSource r1;
+    private HikariDataSource r2;
+    private final AtomicBoolean r1Caida = new AtomicBoolean();
+
+    private ReplicaRoutingDataSource lectura;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate escritura;
+    private TransactionTemplate soloLectura;
+
+    @BeforeEach
+    void setUp() {
+        primaria = pool("primaria");
+        r1 = pool("r1");
+        r2 = pool("r2");
+
+        // r1 deja de dar conexiones mientras r1Caida esté activo; su pool sigue sano para la comprobación
+        DataSource conexionesR1 = new DelegatingDataSource(r1) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (r1Caida.get()) {
+                    throw new SQLException("r1 no disponible");
+                }
+                return super.getConnection();
+            }
+        };
+        lectura = new ReplicaRoutingDataSource(List.of(
+                new ReplicaRoutingDataSource.Replica("r1", r1, conexionesR1),
+                new ReplicaRoutingDataSource.Replica("r2", r2, r2)), primaria, new SimpleMeterRegistry());
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(lectura.getPrimaria());
+        dataSource.setReadOnlyDataSource(lectura);
+        DataSourceTransactionManager transacciones = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        escritura = new TransactionTemplate(transacciones);
+        soloLectura = new TransactionTemplate(transacciones);
+        soloLectura.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lectura.close();
+        primaria.close();
+    }
+
+    @Test
+    void lasLecturasSeRepartenEntreReplicas() {
+        List<String> origenes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            origenes.add(leer());
+        }
+        assertEquals(2, origenes.stream().filter("r1"::equals).count());
+        assertEquals(2, origenes.stream().filter("r2"::equals).count());
+    }
+
+    @Test
+    void lasEscriturasVanAlPrimario() {
+        assertEquals("primaria", escritura.execute(estado -> origen()));
+    }
+
+    @Test
+    void lecturaPrimariaUsaElPrimario() {
+        assertEquals("primaria", PrimaryReads.ejecutar(this::leer));
+        assertFalse(PrimaryReads.activas());
+    }
+
+    @Test
+    void unaReplicaCaidaSaleDelRepartoHastaLaComprobacion() {
+        r1Caida.set(true);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("r2", leer());
+        }
+        assertFalse(lectura.isSana("r1"));
+
+        r1Caida.set(false);
+        lectura.comprobarSalud();
+        assertTrue(lectura.isSana("r1"));
+        assertEquals(2, List.of(leer(), leer()).stream().distinct().count());
+    }
+
+    @Test
+    void sinReplicasSanasSeLeeDelPrimario() {
+        r1Caida.set(true);
+        r2.close();
+        assertEquals("primaria", leer());
+        assertEquals("primaria", leer());
+    }
+
+    private String leer() {
+        return soloLectura.execute(estado -> origen());
+    }
+
+    private String origen() {
+        return jdbc.queryForObject("SELECT nombre FROM origen", String.class);
+    }
+
+    private static HikariDataSource pool(String nombre) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPoolName("test-" + nombre);
+        config.setMaximumPoolSize(2);
+        HikariDataSource pool = new HikariDataSource(config);
+        JdbcTemplate jdbc = new JdbcTemplate(pool);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS origen (nombre VARCHAR(20))");
+        jdbc.update("DELETE FROM origen");
+        jdbc.update("INSERT INTO origen (nombre) VALUES (?)", nombre);
+        return pool;
+    }
+}
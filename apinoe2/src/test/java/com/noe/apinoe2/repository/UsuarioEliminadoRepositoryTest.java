@@ -0,0 +1,68 @@
+package com.noe.apinoe2.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import com.noe.apinoe2.model.UsuarioEliminado;
+
+/**
+ * Recorrido keyset y purga de las marcas de borrado de la sincronización
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class UsuarioEliminadoRepositoryTest {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Autowired
+    private UsuarioEliminadoRepository eliminadoRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void despuesDeContinuaEnEmpatesPorIdYRespetaElTope() {
+        marcar(7, FECHA);
+        marcar(3, FECHA);
+        marcar(9, FECHA.plusMinutes(1));
+        marcar(1, FECHA.plusHours(1));
+
+        assertEquals(List.of(3, 7), ids(eliminadoRepository.findDespuesDe(
+                FECHA.minusDays(1), 0, FECHA.plusMinutes(30), Limit.of(2))));
+        assertEquals(List.of(9), ids(eliminadoRepository.findDespuesDe(
+                FECHA, 7, FECHA.plusMinutes(30), Limit.of(2))));
+        assertEquals(List.of(), ids(eliminadoRepository.findDespuesDe(
+                FECHA.plusMinutes(1), 9, FECHA.plusMinutes(30), Limit.of(2))));
+    }
+
+    @Test
+    void purgarSoloBorraLasAnterioresALaRetencion() {
+        marcar(1, FECHA.minusDays(40));
+        marcar(2, FECHA.minusDays(10));
+        marcar(3, FECHA);
+
+        assertEquals(1, eliminadoRepository.purgar(FECHA.minusDays(30)));
+        entityManager.clear();
+
+        assertEquals(List.of(2, 3), eliminadoRepository.findAll().stream()
+                .map(UsuarioEliminado::getId).sorted().toList());
+    }
+
+    private void marcar(int id, LocalDateTime fecha) {
+        UsuarioEliminado marca = new UsuarioEliminado();
+        marca.setId(id);
+        marca.setFechaEliminacion(fecha);
+        entityManager.persistAndFlush(marca);
+    }
+
+    private static List<Integer> ids(List<UsuarioEliminado> marcas) {
+        return marcas.stream().map(UsuarioEliminado::getId).toList();
+    }
+}
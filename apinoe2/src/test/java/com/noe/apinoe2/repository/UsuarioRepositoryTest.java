@@ -0,0 +1,122 @@
+package com.noe.apinoe2.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import com.noe.apinoe2.model.Usuario;
+
+/**
+ * Sentencias JPQL del repositorio sobre H2 embebida (las nativas con OUTPUT son de SQL Server)
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class UsuarioRepositoryTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void activacionPorIdsSoloCuentaLosQueCambian() {
+        Usuario ana = crear("ana@example.com");
+        Usuario luis = crear("luis@example.com");
+        Usuario eva = crear("eva@example.com");
+        LocalDateTime ahora = LocalDateTime.now().withNano(0);
+
+        assertEquals(2, usuarioRepository.actualizarActivoPorIds(List.of(ana.getId(), luis.getId()), false, ahora));
+        assertEquals(1, usuarioRepository.actualizarActivoPorIds(List.of(ana.getId(), luis.getId(), eva.getId()), false, ahora));
+        entityManager.clear();
+
+        Usuario anaLeida = usuarioRepository.findById(ana.getId()).orElseThrow();
+        assertFalse(anaLeida.getActivo());
+        assertEquals(ahora, anaLeida.getFechaActualizacion());
+        // Un solo cambio efectivo: la segunda sentencia no la vuelve a tocar
+        assertEquals(ana.getVersion() + 1, anaLeida.getVersion());
+        assertEquals(eva.getVersion() + 1, usuarioRepository.findById(eva.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void activacionIndividualDistingueSinCambios() {
+        Usuario ana = crear("ana@example.com");
+
+        assertEquals(0, usuarioRepository.actualizarActivo(ana.getId(), true, LocalDateTime.now()));
+        assertEquals(1, usuarioRepository.actualizarActivo(ana.getId(), false, LocalDateTime.now()));
+        assertEquals(0, usuarioRepository.actualizarActivo(-1, false, LocalDateTime.now()));
+    }
+
+    @Test
+    void activacionPorFechaSoloAfectaALosNoActualizados() {
+        Usuario antiguo = crear("antiguo@example.com");
+        Usuario reciente = crear("reciente@example.com");
+        fijarFechaActualizacion(antiguo, LocalDateTime.of(2020, 1, 1, 0, 0));
+
+        int cambiados = usuarioRepository.actualizarActivoSinActualizarDesde(
+                LocalDateTime.of(2021, 1, 1, 0, 0), false, LocalDateTime.now());
+        entityManager.clear();
+
+        assertEquals(1, cambiados);
+        assertFalse(usuarioRepository.findById(antiguo.getId()).orElseThrow().getActivo());
+        assertTrue(usuarioRepository.findById(reciente.getId()).orElseThrow().getActivo());
+    }
+
+    @Test
+    void modificadosRecorreEmpatesDeFechaPorIdYRespetaElTope() {
+        LocalDateTime fecha = LocalDateTime.of(2024, 5, 1, 12, 0);
+        Usuario a = crear("a@example.com");
+        Usuario b = crear("b@example.com");
+        Usuario c = crear("c@example.com");
+        Usuario posterior = crear("posterior@example.com");
+        fijarFechaActualizacion(a, fecha);
+        fijarFechaActualizacion(b, fecha);
+        fijarFechaActualizacion(c, fecha);
+        fijarFechaActualizacion(posterior, fecha.plusHours(1));
+
+        // Páginas de 2 desde el inicio: los tres empatados salen una sola vez y en orden de id
+        List<Integer> vistos = new ArrayList<>();
+        LocalDateTime desdeFecha = fecha.minusDays(1);
+        Integer desdeId = 0;
+        List<Usuario> pagina;
+        do {
+            pagina = usuarioRepository.findModificadosDespuesDe(desdeFecha, desdeId, fecha, Limit.of(2));
+            for (Usuario usuario : pagina) {
+                vistos.add(usuario.getId());
+                desdeFecha = usuario.getFechaActualizacion();
+                desdeId = usuario.getId();
+            }
+        } while (!pagina.isEmpty());
+
+        assertEquals(List.of(a.getId(), b.getId(), c.getId()), vistos);
+    }
+
+    private Usuario crear(String email) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre(email.substring(0, email.indexOf('@')));
+        usuario.setEmail(email);
+        usuario.setActivo(true);
+        return entityManager.persistFlushFind(usuario);
+    }
+
+    /**
+     * Las fechas las fija @PrePersist/@PreUpdate: se cambian con SQL directo
+     */
+    private void fijarFechaActualizacion(Usuario usuario, LocalDateTime fecha) {
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE usuarios SET fecha_actualizacion = ?1 WHERE id = ?2")
+                .setParameter(1, fecha)
+                .setParameter(2, usuario.getId())
+                .executeUpdate();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.noe.apinoe2.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.noe.apinoe2.model.Usuario;
+import com.noe.apinoe2.model.UsuarioEliminado;
+
+/**
+ * Reconciliación del índice de búsqueda con escrituras que no pasaron por esta instancia
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(UsuarioBusquedaIndex.class)
+class UsuarioBusquedaIndexTest {
+
+    @Autowired
+    private UsuarioBusquedaIndex indice;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void construirIndice() throws InterruptedException {
+        indice.inicializar();
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!indice.isListo() && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertTrue(indice.isListo());
+    }
+
+    @Test
+    void incorporaLosUsuariosEscritosPorOtraInstancia() {
+        Usuario usuario = crear("Zacarías", "zacarias@example.com");
+        assertEquals(List.of(), indice.buscarPorNombre("zacar", 10));
+
+        indice.reconciliar();
+
+        assertEquals(List.of(usuario.getId()), indice.buscarPorNombre("zacar", 10));
+        assertEquals(List.of(usuario.getId()), indice.buscarPorEmail("zacarias@", 10));
+    }
+
+    @Test
+    void quitaLosUsuariosBorradosPorOtraInstancia() {
+        Usuario usuario = crear("Zacarías", "zacarias@example.com");
+        indice.reconciliar();
+
+        UsuarioEliminado marca = new UsuarioEliminado();
+        marca.setId(usuario.getId());
+        marca.setFechaEliminacion(LocalDateTime.now());
+        entityManager.remove(usuario);
+        entityManager.persistAndFlush(marca);
+        indice.reconciliar();
+
+        assertEquals(List.of(), indice.buscarPorNombre("zacar", 10));
+    }
+
+    private Usuario crear(String nombre, String email) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre(nombre);
+        usuario.setEmail(email);
+        usuario.setActivo(true);
+        return entityManager.persistFlushFind(usuario);
+    }
+}
@@ -0,0 +1,146 @@
+package com.noe.apinoe2.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.noe.apinoe2.model.Usuario;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Consistencia de los índices por email y Google ID con la caché por id
+ * (sin transacción activa la caché siempre se usa)
+ */
+class UsuarioCacheTest {
+
+    private UsuarioCache cache;
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new UsuarioCache(new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void reemplazarEntradaConservaIndiceDeEmail() {
+        cache.porId(1, cargar(usuario(1, "ana@example.com", null)));
+        // Carga por otro índice del mismo usuario: reemplaza la entrada del id 1
+        cache.porGoogleId("g-1", cargar(usuario(1, "ana@example.com", "g-1")));
+        esperarAvisos();
+        cargas.set(0);
+
+        Optional<Usuario> encontrado = cache.porEmail("ANA@example.com", cargar(usuario(1, "ana@example.com", "g-1")));
+
+        assertTrue(encontrado.isPresent());
+        assertEquals(0, cargas.get());
+        cache.porGoogleId("g-1", cargar(null));
+        assertEquals(0, cargas.get());
+    }
+
+    @Test
+    void reemplazosRepetidosConservanTodosLosIndices() {
+        for (int i = 2; i < 5000; i++) {
+            cache.porId(i, cargar(usuario(i, i + "@example.com", null)));
+            cache.porGoogleId("g-" + i, cargar(usuario(i, i + "@example.com", "g-" + i)));
+        }
+        esperarAvisos();
+        cargas.set(0);
+        for (int i = 2; i < 5000; i++) {
+            cache.porEmail(i + "@example.com", cargar(null));
+        }
+        assertEquals(0, cargas.get());
+    }
+
+    @Test
+    void reemplazarConEmailCambiadoQuitaElIndiceAnterior() {
+        cache.porId(1, cargar(usuario(1, "ana@example.com", null)));
+        cache.porGoogleId("g-1", cargar(usuario(1, "nueva@example.com", "g-1")));
+        esperarAvisos();
+        cargas.set(0);
+
+        assertTrue(cache.porEmail("nueva@example.com", cargar(null)).isPresent());
+        assertEquals(0, cargas.get());
+        assertTrue(cache.porEmail("ana@example.com", cargar(null)).isEmpty());
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    void invalidarQuitaLosIndices() {
+        cache.porGoogleId("g-1", cargar(usuario(1, "ana@example.com", "g-1")));
+        cache.invalidar(1);
+        cargas.set(0);
+
+        cache.porEmail("ana@example.com", cargar(null));
+        cache.porGoogleId("g-1", cargar(null));
+
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    void devuelveCopiasDeLaEntrada() {
+        cache.porId(1, cargar(usuario(1, "ana@example.com", null)));
+
+        cache.porId(1, cargar(null)).orElseThrow().setEmail("otro@example.com");
+
+        assertEquals("ana@example.com", cache.porId(1, cargar(null)).orElseThrow().getEmail());
+    }
+
+    @Test
+    void invalidarDuranteElGuardadoNoDejaLaEntradaObsoleta() {
+        // La invalidación llega mientras guardar() copia el usuario leído, ya comprobada la generación
+        Usuario leido = new Usuario() {
+            private boolean invalidado;
+
+            @Override
+            public String getImagenUrl() {
+                if (!invalidado) {
+                    invalidado = true;
+                    cache.invalidar(1);
+                }
+                return super.getImagenUrl();
+            }
+        };
+        leido.setId(1);
+        leido.setEmail("ana@example.com");
+        cache.porId(1, cargar(leido));
+        cargas.set(0);
+
+        cache.porId(1, cargar(usuario(1, "ana@example.com", null)));
+
+        assertEquals(1, cargas.get());
+    }
+
+    /**
+     * Un aviso de retirada asíncrono no debe llegar después y borrar los índices nuevos
+     */
+    private static void esperarAvisos() {
+        ForkJoinPool.commonPool().awaitQuiescence(1, TimeUnit.SECONDS);
+    }
+
+    private <K> Function<K, Optional<Usuario>> cargar(Usuario usuario) {
+        return clave -> {
+            cargas.incrementAndGet();
+            return Optional.ofNullable(usuario);
+        };
+    }
+
+    private static Usuario usuario(Integer id, String email, String googleId) {
+        Usuario usuario = new Usuario();
+        usuario.setId(id);
+        usuario.setNombre("Usuario " + id);
+        usuario.setEmail(email);
+        usuario.setGoogleId(googleId);
+        usuario.setActivo(true);
+        return usuario;
+    }
+}
@@ -0,0 +1,168 @@
+package com.noe.apinoe2.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noe.apinoe2.service.support.UsuarioEventos.Evento;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Reanudación desde Last-Event-ID con el historial circular, reinicio cuando no es posible
+ * y desconexión de los suscriptores que no vacían su cola
+ */
+class UsuarioEventosTest {
+
+    private static final int HISTORIAL = 8;
+    private static final int COLA = 4;
+
+    private UsuarioEventos eventos;
+
+    @BeforeEach
+    void setUp() {
+        eventos = new UsuarioEventos(new ObjectMapper(), new SimpleMeterRegistry(), HISTORIAL, COLA);
+    }
+
+    @Test
+    void suscriptorRecibeLosEventosPublicados() throws InterruptedException {
+        Cliente cliente = new Cliente();
+        eventos.suscribir(null, cliente);
+
+        eventos.publicar(UsuarioEventos.CREADO, List.of(1));
+        eventos.publicar(UsuarioEventos.ACTUALIZADO, List.of(1, 2));
+
+        Evento creado = cliente.siguiente();
+        Evento actualizado = cliente.siguiente();
+        assertEquals(UsuarioEventos.CREADO, creado.tipo());
+        assertEquals("{\"tipo\":\"creado\",\"ids\":[1]}", creado.datos());
+        assertEquals(UsuarioEventos.ACTUALIZADO, actualizado.tipo());
+    }
+
+    @Test
+    void reanudaDesdeElUltimoIdRecibido() throws InterruptedException {
+        List<String> ids = publicar(3);
+
+        Cliente reconectado = new Cliente();
+        eventos.suscribir(ids.get(0), reconectado);
+
+        assertEquals(ids.get(1), reconectado.siguiente().id());
+        assertEquals(ids.get(2), reconectado.siguiente().id());
+        assertNull(reconectado.eventos.poll(100, TimeUnit.MILLISECONDS));
+
+        // Y sigue recibiendo los nuevos
+        eventos.publicar(UsuarioEventos.ELIMINADO, List.of(9));
+        assertEquals(UsuarioEventos.ELIMINADO, reconectado.siguiente().tipo());
+    }
+
+    @Test
+    void alDiaNoRecibeNadaPendiente() throws InterruptedException {
+        List<String> ids = publicar(2);
+
+        Cliente reconectado = new Cliente();
+        eventos.suscribir(ids.get(1), reconectado);
+
+        assertNull(reconectado.eventos.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void idDeOtraInstanciaProvocaReinicio() throws InterruptedException {
+        publicar(2);
+
+        Cliente cliente = new Cliente();
+        eventos.suscribir("otra-instancia-1", cliente);
+
+        Evento reinicio = cliente.siguiente();
+        assertEquals(UsuarioEventos.REINICIO, reinicio.tipo());
+        assertNull(cliente.eventos.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void idFueraDelHistorialProvocaReinicio() throws InterruptedException {
+        // Más pendientes de los que caben en el historial (y en la cola del suscriptor)
+        List<String> ids = publicar(HISTORIAL + 2);
+
+        Cliente cliente = new Cliente();
+        eventos.suscribir(ids.get(0), cliente);
+
+        Evento reinicio = cliente.siguiente();
+        assertEquals(UsuarioEventos.REINICIO, reinicio.tipo());
+        // El id del reinicio es el último publicado: reconectar con él reanuda desde ahí
+        assertEquals(ids.get(ids.size() - 1), reinicio.id());
+    }
+
+    @Test
+    void suscriptorQueNoVaciaLaColaSeDesconecta() throws InterruptedException {
+        CountDownLatch bloqueado = new CountDownLatch(1);
+        Cliente lento = new Cliente() {
+            @Override
+            public void enviar(Evento evento) {
+                try {
+                    bloqueado.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        UsuarioEventos.Suscripcion suscripcion = eventos.suscribir(null, lento);
+
+        // Uno en envío y COLA en espera; el siguiente no cabe
+        publicar(COLA + 2);
+
+        assertTrue(lento.cerrado.await(5, TimeUnit.SECONDS));
+        bloqueado.countDown();
+        suscripcion.cancelar();
+    }
+
+    /**
+     * Publica uno a uno, esperando a que un suscriptor testigo reciba cada evento, y devuelve sus ids
+     */
+    private List<String> publicar(int cuantos) throws InterruptedException {
+        Cliente testigo = new Cliente();
+        UsuarioEventos.Suscripcion suscripcion = eventos.suscribir(null, testigo);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < cuantos; i++) {
+            eventos.publicar(UsuarioEventos.ACTUALIZADO, List.of(i));
+            ids.add(testigo.siguiente().id());
+        }
+        suscripcion.cancelar();
+        return ids;
+    }
+
+    private static class Cliente implements UsuarioEventos.Suscriptor {
+
+        final BlockingQueue<Evento> eventos = new LinkedBlockingQueue<>();
+        final CountDownLatch cerrado = new CountDownLatch(1);
+
+        @Override
+        public void enviar(Evento evento) {
+            if (!evento.esLatido()) {
+                eventos.add(evento);
+            }
+        }
+
+        @Override
+        public void cerrar() {
+            cerrado.countDown();
+        }
+
+        Evento siguiente() throws InterruptedException {
+            Evento evento = eventos.poll(5, TimeUnit.SECONDS);
+            if (evento == null) {
+                throw new AssertionError("No llegó el evento esperado");
+            }
+            return evento;
+        }
+    }
+}
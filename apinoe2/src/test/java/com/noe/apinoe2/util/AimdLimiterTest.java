@@ -0,0 +1,133 @@
+package com.noe.apinoe2.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Rechazo por encima del límite, aumento aditivo con el límite en uso y reducción
+ * multiplicativa (una por latencia objetivo) ante peticiones lentas o fallidas
+ */
+class AimdLimiterTest {
+
+    private static final long OBJETIVO_LARGO = TimeUnit.SECONDS.toNanos(10);
+    private static final long OBJETIVO_CORTO = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void rechazaPorEncimaDelLimiteSinEsperar() {
+        AimdLimiter limitador = new AimdLimiter(2, 1, 10, OBJETIVO_LARGO, 0.5);
+
+        assertTrue(limitador.tryAcquire());
+        assertTrue(limitador.tryAcquire());
+        assertFalse(limitador.tryAcquire());
+        assertEquals(2, limitador.getEnCurso());
+
+        limitador.release(0, false);
+
+        assertTrue(limitador.tryAcquire());
+    }
+
+    @Test
+    void creceUnoPorVentanaConElLimiteEnUso() {
+        AimdLimiter limitador = new AimdLimiter(4, 1, 10, OBJETIVO_LARGO, 0.5);
+        ocupar(limitador);
+
+        // Con el límite siempre lleno, cada petición rápida que termina deja paso a otra
+        for (int i = 0; i < 4; i++) {
+            limitador.release(0, false);
+            ocupar(limitador);
+        }
+        assertEquals(4, limitador.getLimite());
+
+        limitador.release(0, false);
+        ocupar(limitador);
+        assertEquals(5, limitador.getLimite());
+        assertEquals(5, limitador.getEnCurso());
+    }
+
+    @Test
+    void noCreceConPocaCarga() {
+        AimdLimiter limitador = new AimdLimiter(10, 1, 20, OBJETIVO_LARGO, 0.5);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(limitador.tryAcquire());
+            limitador.release(0, false);
+        }
+
+        assertEquals(10, limitador.getLimite());
+    }
+
+    @Test
+    void noSuperaElMaximo() {
+        AimdLimiter limitador = new AimdLimiter(3, 1, 3, OBJETIVO_LARGO, 0.5);
+        ocupar(limitador);
+
+        for (int i = 0; i < 100; i++) {
+            limitador.release(0, false);
+            ocupar(limitador);
+        }
+
+        assertEquals(3, limitador.getLimite());
+        assertEquals(3, limitador.getEnCurso());
+    }
+
+    @Test
+    void peticionLentaOFallidaReduceElLimite() throws InterruptedException {
+        AimdLimiter limitador = new AimdLimiter(16, 2, 32, OBJETIVO_CORTO, 0.5);
+
+        esperarObjetivo();
+        limitador.tryAcquire();
+        limitador.release(OBJETIVO_CORTO * 2, false);
+        assertEquals(8, limitador.getLimite());
+
+        esperarObjetivo();
+        limitador.tryAcquire();
+        limitador.release(0, true);
+        assertEquals(4, limitador.getLimite());
+    }
+
+    @Test
+    void unaRafagaDeFallosReduceUnaSolaVez() throws InterruptedException {
+        AimdLimiter limitador = new AimdLimiter(16, 2, 32, OBJETIVO_CORTO, 0.5);
+
+        esperarObjetivo();
+        for (int i = 0; i < 10; i++) {
+            limitador.tryAcquire();
+            limitador.release(0, true);
+        }
+
+        assertEquals(8, limitador.getLimite());
+    }
+
+    @Test
+    void noBajaDelMinimo() throws InterruptedException {
+        AimdLimiter limitador = new AimdLimiter(4, 3, 32, OBJETIVO_CORTO, 0.5);
+
+        esperarObjetivo();
+        limitador.tryAcquire();
+        limitador.release(0, true);
+
+        assertEquals(3, limitador.getLimite());
+    }
+
+    @Test
+    void limitesNoValidosSeRechazan() {
+        assertThrows(IllegalArgumentException.class, () -> new AimdLimiter(1, 0, 10, OBJETIVO_LARGO, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new AimdLimiter(1, 5, 4, OBJETIVO_LARGO, 0.5));
+    }
+
+    private static void ocupar(AimdLimiter limitador) {
+        while (limitador.tryAcquire()) {
+            // Hasta el límite actual
+        }
+    }
+
+    private static void esperarObjetivo() throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(OBJETIVO_CORTO + TimeUnit.MILLISECONDS.toNanos(5));
+    }
+}
@@ -0,0 +1,52 @@
+package com.noe.apinoe2.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sin falsos negativos y con la tasa de falsos positivos cerca de la configurada
+ */
+class BloomFilterTest {
+
+    private static final int CLAVES = 50_000;
+
+    @Test
+    void todasLasClavesInsertadasPuedenEstar() {
+        BloomFilter filtro = new BloomFilter(CLAVES, 0.01);
+        IntStream.range(0, CLAVES).forEach(i -> filtro.put("usuario" + i + "@example.com"));
+
+        for (int i = 0; i < CLAVES; i++) {
+            assertTrue(filtro.mightContain("usuario" + i + "@example.com"), "falso negativo en " + i);
+        }
+    }
+
+    @Test
+    void insercionesConcurrentesNoPierdenClaves() {
+        BloomFilter filtro = new BloomFilter(CLAVES, 0.01);
+        IntStream.range(0, CLAVES).parallel().forEach(i -> filtro.put("g-" + i));
+
+        assertTrue(IntStream.range(0, CLAVES).allMatch(i -> filtro.mightContain("g-" + i)));
+    }
+
+    @Test
+    void tasaDeFalsosPositivosCercaDeLaConfigurada() {
+        BloomFilter filtro = new BloomFilter(CLAVES, 0.01);
+        IntStream.range(0, CLAVES).forEach(i -> filtro.put("dentro-" + i));
+
+        long falsosPositivos = IntStream.range(0, CLAVES).filter(i -> filtro.mightContain("fuera-" + i)).count();
+
+        // 1 % esperado; margen amplio para no depender de la distribución del hash
+        assertTrue(falsosPositivos < CLAVES * 0.02, "falsos positivos: " + falsosPositivos);
+    }
+
+    @Test
+    void filtroVacioDescartaCualquierClave() {
+        BloomFilter filtro = new BloomFilter(1_000, 0.01);
+
+        assertFalse(filtro.mightContain("ana@example.com"));
+    }
+}
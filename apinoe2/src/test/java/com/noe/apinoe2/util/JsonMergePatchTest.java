@@ -0,0 +1,71 @@
+package com.noe.apinoe2.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Casos del RFC 7396 (sección 3 y apéndice A)
+ */
+class JsonMergePatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void nullEliminaElCampo() {
+        assertPatch("{\"a\":\"b\",\"c\":\"d\"}", "{\"a\":null}", "{\"c\":\"d\"}");
+        assertPatch("{\"a\":\"b\"}", "{\"x\":null}", "{\"a\":\"b\"}");
+    }
+
+    @Test
+    void camposAusentesSeConservanYLosPresentesSeReemplazan() {
+        assertPatch("{\"a\":\"b\",\"c\":\"d\"}", "{\"a\":\"z\"}", "{\"a\":\"z\",\"c\":\"d\"}");
+        assertPatch("{\"a\":\"b\"}", "{\"b\":\"c\"}", "{\"a\":\"b\",\"b\":\"c\"}");
+    }
+
+    @Test
+    void objetosAnidadosSeCombinan() {
+        assertPatch("{\"title\":\"Goodbye!\",\"author\":{\"givenName\":\"John\",\"familyName\":\"Doe\"}}",
+                "{\"title\":\"Hello!\",\"author\":{\"familyName\":null},\"phoneNumber\":\"+01-123-456-7890\"}",
+                "{\"title\":\"Hello!\",\"author\":{\"givenName\":\"John\"},\"phoneNumber\":\"+01-123-456-7890\"}");
+        assertPatch("{\"e\":null}", "{\"a\":1}", "{\"e\":null,\"a\":1}");
+        assertPatch("{}", "{\"a\":{\"bb\":{\"ccc\":null}}}", "{\"a\":{\"bb\":{}}}");
+    }
+
+    @Test
+    void arraysSeReemplazanCompletos() {
+        assertPatch("{\"a\":[\"b\"]}", "{\"a\":\"c\"}", "{\"a\":\"c\"}");
+        assertPatch("{\"a\":\"c\"}", "{\"a\":[\"b\"]}", "{\"a\":[\"b\"]}");
+        assertPatch("{\"a\":[{\"b\":\"c\"}]}", "{\"a\":[1]}", "{\"a\":[1]}");
+        assertPatch("[\"a\",\"b\"]", "[\"c\",\"d\"]", "[\"c\",\"d\"]");
+    }
+
+    @Test
+    void parcheNoObjetoReemplazaElDocumento() {
+        assertPatch("{\"a\":\"b\"}", "[\"c\"]", "[\"c\"]");
+        assertPatch("{\"a\":\"foo\"}", "\"bar\"", "\"bar\"");
+        assertPatch("[1,2]", "{\"a\":\"b\",\"c\":null}", "{\"a\":\"b\"}");
+    }
+
+    @Test
+    void elDocumentoOriginalNoSeModifica() throws JsonProcessingException {
+        JsonNode original = objectMapper.readTree("{\"a\":{\"b\":1}}");
+
+        JsonMergePatch.apply(original, objectMapper.readTree("{\"a\":{\"b\":null}}"));
+
+        assertEquals(objectMapper.readTree("{\"a\":{\"b\":1}}"), original);
+    }
+
+    private void assertPatch(String documento, String parche, String esperado) {
+        try {
+            JsonNode resultado = JsonMergePatch.apply(objectMapper.readTree(documento), objectMapper.readTree(parche));
+            assertEquals(objectMapper.readTree(esperado), resultado);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.noe.apinoe2.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ida y vuelta de los cursores y rechazo de cursores alterados o mal formados
+ */
+class KeysetCursorTest {
+
+    @Test
+    void idaYVueltaConservaLosValores() {
+        LocalDateTime fecha = LocalDateTime.of(2024, 5, 17, 10, 30, 15, 123_000_000);
+
+        String cursor = KeysetCursor.encode(fecha, 42);
+
+        assertArrayEquals(new String[] {fecha.toString(), "42"}, KeysetCursor.decode(cursor, 2));
+    }
+
+    @Test
+    void cursorDeSincronizacionConCincoPartes() {
+        String cursor = KeysetCursor.encode("2024-05-17T10:30:15", "2024-05-18T00:00", "e", "2024-05-17T11:00", 7);
+
+        assertArrayEquals(new String[] {"2024-05-17T10:30:15", "2024-05-18T00:00", "e", "2024-05-17T11:00", "7"},
+                KeysetCursor.decode(cursor, 5));
+    }
+
+    @Test
+    void cursorEsOpacoYSeguroEnUrl() {
+        String cursor = KeysetCursor.encode(LocalDateTime.of(2024, 1, 1, 0, 0), 123456);
+
+        assertFalse(cursor.contains("|"));
+        assertFalse(cursor.contains("="));
+        assertFalse(cursor.matches(".*[+/].*"));
+    }
+
+    @Test
+    void rechazaCursorDeOtraVista() {
+        // Un cursor (fecha, id) no sirve donde se espera solo (id), ni al revés
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(KeysetCursor.encode("2024-01-01T00:00", 5), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(KeysetCursor.encode(5), 2));
+    }
+
+    @Test
+    void rechazaCursorAlterado() {
+        String cursor = KeysetCursor.encode(10);
+        String conParteAnadida = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("10|11".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(cursor + "*", 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(conParteAnadida, 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("no es base64!", 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("", 2));
+    }
+}
@@ -0,0 +1,152 @@
+package com.noe.apinoe2.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Llamadas concurrentes con la misma clave: una sola ejecución, mismo resultado o
+ * excepción para todas, y nada retenido al terminar
+ */
+class SingleFlightGroupTest {
+
+    private static final int SEGUIDORES = 8;
+
+    private final SingleFlightGroup<String> grupo = new SingleFlightGroup<>();
+    private final ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+    private final AtomicInteger compartidas = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        hilos.shutdownNow();
+    }
+
+    @Test
+    void llamadasConcurrentesCompartenUnaEjecucion() throws Exception {
+        Object resultado = new Object();
+        CountDownLatch unidos = new CountDownLatch(SEGUIDORES);
+        CountDownLatch lider = new CountDownLatch(1);
+
+        Future<Object> primera = enHilo("clave", () -> {
+            lider.countDown();
+            // Termina cuando todos los seguidores esperan su resultado
+            unidos.await();
+            ejecuciones.incrementAndGet();
+            return resultado;
+        }, this::contar);
+        lider.await();
+        List<Future<Object>> seguidoras = lanzarSeguidoras("clave", unidos, () -> {
+            ejecuciones.incrementAndGet();
+            return new Object();
+        });
+
+        assertSame(resultado, primera.get(5, TimeUnit.SECONDS));
+        for (Future<Object> seguidora : seguidoras) {
+            assertSame(resultado, seguidora.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, ejecuciones.get());
+        assertEquals(SEGUIDORES, compartidas.get());
+        assertEquals(0, grupo.getEnCurso());
+    }
+
+    @Test
+    void laExcepcionSePropagaATodasLasLlamadas() throws Exception {
+        IOException error = new IOException("BD no disponible");
+        CountDownLatch unidos = new CountDownLatch(SEGUIDORES);
+        CountDownLatch lider = new CountDownLatch(1);
+
+        Future<Object> primera = enHilo("clave", () -> {
+            lider.countDown();
+            unidos.await();
+            throw error;
+        }, this::contar);
+        lider.await();
+        List<Future<Object>> seguidoras = lanzarSeguidoras("clave", unidos, () -> "no debe ejecutarse");
+
+        assertSame(error, assertThrows(ExecutionException.class, () -> primera.get(5, TimeUnit.SECONDS)).getCause());
+        for (Future<Object> seguidora : seguidoras) {
+            // La misma excepción, sin envolver en CompletionException
+            assertSame(error, assertThrows(ExecutionException.class, () -> seguidora.get(5, TimeUnit.SECONDS)).getCause());
+        }
+        assertEquals(0, grupo.getEnCurso());
+    }
+
+    @Test
+    void noGuardaResultadosEntreLlamadas() throws Throwable {
+        grupo.execute("clave", () -> ejecuciones.incrementAndGet(), this::contar);
+        grupo.execute("clave", () -> ejecuciones.incrementAndGet(), this::contar);
+
+        assertEquals(2, ejecuciones.get());
+        assertEquals(0, compartidas.get());
+    }
+
+    @Test
+    void clavesDistintasNoSeAgrupan() throws Exception {
+        CountDownLatch lider = new CountDownLatch(1);
+        CountDownLatch fin = new CountDownLatch(1);
+        Future<Object> primera = enHilo("a", () -> {
+            lider.countDown();
+            fin.await();
+            return "a";
+        }, this::contar);
+        lider.await();
+
+        try {
+            assertEquals("b", grupo.execute("b", () -> "b", this::contar));
+        } catch (Throwable e) {
+            throw new AssertionError(e);
+        }
+        fin.countDown();
+
+        assertEquals("a", primera.get(5, TimeUnit.SECONDS));
+        assertEquals(0, compartidas.get());
+    }
+
+    /**
+     * Lanza las seguidoras y cuenta atrás en unidos cuando cada una se ha sumado a la llamada en curso
+     */
+    private List<Future<Object>> lanzarSeguidoras(String clave, CountDownLatch unidos, SingleFlightGroup.Carga carga) {
+        List<Future<Object>> seguidoras = new ArrayList<>();
+        for (int i = 0; i < SEGUIDORES; i++) {
+            seguidoras.add(enHilo(clave, carga, compartida -> {
+                contar(compartida);
+                unidos.countDown();
+            }));
+        }
+        return seguidoras;
+    }
+
+    private Future<Object> enHilo(String clave, SingleFlightGroup.Carga carga, Consumer<Boolean> compartida) {
+        return hilos.submit(() -> {
+            try {
+                return grupo.execute(clave, carga, compartida);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private void contar(boolean compartida) {
+        if (compartida) {
+            compartidas.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.noe.apinoe2.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Búsqueda por subcadena, orden por relevancia y mantenimiento de las listas de trigramas
+ */
+class TrigramIndexTest {
+
+    private TrigramIndex indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new TrigramIndex();
+        indice.put(1, "María García");
+        indice.put(2, "Mario Gómez");
+        indice.put(3, "Ana Marín");
+        indice.put(4, "mar");
+        indice.put(5, "Pedro Salmarón");
+    }
+
+    @Test
+    void ordenaPorExactaPrefijoInicioDePalabraYResto() {
+        assertEquals(List.of(4, 2, 1, 3, 5), indice.search("MAR", 10));
+    }
+
+    @Test
+    void limiteMayorEmpiezaPorLosResultadosDelMenor() {
+        List<Integer> completos = indice.search("mar", 10);
+
+        for (int limite = 1; limite <= completos.size(); limite++) {
+            assertEquals(completos.subList(0, limite), indice.search("mar", limite));
+        }
+    }
+
+    @Test
+    void soloDevuelveTextosQueContienenLaConsulta() {
+        assertEquals(List.of(1), indice.search("garcía", 10));
+        assertTrue(indice.search("xyz", 10).isEmpty());
+        // Todos los trigramas existen por separado pero no la subcadena completa
+        assertTrue(indice.search("mario garcía", 10).isEmpty());
+    }
+
+    @Test
+    void reindexarQuitaLosTrigramasAnteriores() {
+        indice.put(1, "Lucía Pérez");
+
+        assertEquals(List.of(2), indice.search("mario", 10));
+        assertTrue(indice.search("garc", 10).isEmpty());
+        assertEquals(List.of(1), indice.search("lucía", 10));
+    }
+
+    @Test
+    void eliminarQuitaElTexto() {
+        indice.remove(4);
+
+        assertEquals(4, indice.size());
+        assertEquals(List.of(2, 1, 3, 5), indice.search("mar", 10));
+    }
+
+    @Test
+    void consultaCortaSeRechaza() {
+        assertThrows(IllegalArgumentException.class, () -> indice.search("ma", 10));
+        assertThrows(IllegalArgumentException.class, () -> indice.search("  m  ", 10));
+    }
+}